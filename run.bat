@@ -10,15 +10,26 @@ if exist "lib\lwjgl" (
   set "LWJGL_CP=.;lib\lwjgl\*"
 )
 
+rem 向量物理内核依赖 jdk.incubator.vector（JDK 16+），没有该模块时不编译它，运行时自动退回标量内核
+set "VECTOR_FLAGS="
+java --list-modules 2>nul | findstr /b "jdk.incubator.vector" >nul
+if not errorlevel 1 (
+  set "VECTOR_FLAGS=--add-modules jdk.incubator.vector"
+)
+
 rem 查找所有 Java 源文件
 set "SOURCES="
 for /r "src\main\java" %%f in (*.java) do (
-  set "SOURCES=!SOURCES! %%f"
+  if "%%~nxf"=="VectorPhysicsKernel.java" (
+    if defined VECTOR_FLAGS set "SOURCES=!SOURCES! %%f"
+  ) else (
+    set "SOURCES=!SOURCES! %%f"
+  )
 )
 
 rem 编译
 echo Compiling Java sources...
-javac -encoding UTF-8 -d build\classes -cp "%LWJGL_CP%" %SOURCES%
+javac -encoding UTF-8 %VECTOR_FLAGS% -d build\classes -cp "%LWJGL_CP%" %SOURCES%
 if errorlevel 1 (
   echo Compilation failed!
   exit /b 1
@@ -50,4 +61,4 @@ if exist "%NATIVES_PATH%" (
 
 rem 运行程序
 echo Running game...
-java %JAVA_FLAGS% -cp "%CLASSPATH%" com.gameengine.example.Game
+java %VECTOR_FLAGS% %JAVA_FLAGS% -cp "%CLASSPATH%" com.gameengine.example.Game %*
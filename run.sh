@@ -9,7 +9,15 @@ if [ -d "lib/lwjgl" ]; then
   LWJGL_CP=".:lib/lwjgl/*"
 fi
 SOURCES=$(find src/main/java -type f -name "*.java")
-javac -d build/classes -cp "$LWJGL_CP" $SOURCES
+
+# 向量物理内核依赖 jdk.incubator.vector（JDK 16+），没有该模块时不编译它，运行时自动退回标量内核
+VECTOR_FLAGS=""
+if java --list-modules 2>/dev/null | grep -q "^jdk.incubator.vector"; then
+  VECTOR_FLAGS="--add-modules jdk.incubator.vector"
+else
+  SOURCES=$(echo "$SOURCES" | grep -v "VectorPhysicsKernel.java")
+fi
+javac $VECTOR_FLAGS -d build/classes -cp "$LWJGL_CP" $SOURCES
 
 LWJGL_DIR="lib/lwjgl"
 CLASSPATH="build/classes"
@@ -37,7 +45,7 @@ if [ -n "$OS_ID" ] && [ -n "$ARCH_ID" ] && [ -d "$LWJGL_DIR/natives/${OS_ID}-${A
 fi
 
 if [[ "$OS" == Darwin* ]]; then
-  exec java -XstartOnFirstThread $JAVA_FLAGS -cp "$CLASSPATH" com.gameengine.example.Game
+  exec java -XstartOnFirstThread $VECTOR_FLAGS $JAVA_FLAGS -cp "$CLASSPATH" com.gameengine.example.Game "$@"
 else
-  exec java $JAVA_FLAGS -cp "$CLASSPATH" com.gameengine.example.Game
+  exec java $VECTOR_FLAGS $JAVA_FLAGS -cp "$CLASSPATH" com.gameengine.example.Game "$@"
 fi
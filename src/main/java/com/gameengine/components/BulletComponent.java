@@ -1,17 +1,38 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.EntityHandle;
 import com.gameengine.core.GameObject;
 
 public class BulletComponent extends Component<BulletComponent> {
     private int damage;
-    private GameObject shooter;
+    private long shooter; // 射手句柄，不持有强引用
     private float lifetime;
     private boolean hasHit;
 
     public BulletComponent(int damage, GameObject shooter) {
         this.damage = damage;
-        this.shooter = shooter;
+        this.shooter = shooter != null ? shooter.getHandle() : EntityHandle.NONE;
+        this.lifetime = 0f;
+        this.hasHit = false;
+    }
+
+    // 复用子弹时重新设定伤害与射手
+    public void configure(int damage, GameObject shooter) {
+        this.damage = damage;
+        this.shooter = shooter != null ? shooter.getHandle() : EntityHandle.NONE;
+    }
+
+    // 只改写自己的计时和所属子弹的激活状态
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.shooter = EntityHandle.NONE;
         this.lifetime = 0f;
         this.hasHit = false;
     }
@@ -28,16 +49,20 @@ public class BulletComponent extends Component<BulletComponent> {
     }
 
     public void onHit(GameObject target) {
-        if (hasHit || target == shooter) return;
+        if (hasHit || target.getHandle() == shooter) return;
         HealthComponent health = target.getComponent(HealthComponent.class);
         if (health != null && !health.isDead()) health.takeDamage(damage);
         hasHit = true;
         destroyBullet();
     }
 
-    private void destroyBullet() { owner.setActive(false); }
+    // 经场景销毁，工作线程上调用时延迟到同步点
+    private void destroyBullet() {
+        if (owner.getScene() != null) owner.getScene().destroyGameObject(owner);
+        else owner.setActive(false);
+    }
 
     public boolean hasHit() { return hasHit; }
     public int getDamage() { return damage; }
-    public GameObject getShooter(){return this.shooter;}
+    public long getShooter(){return this.shooter;}
 }
@@ -0,0 +1,54 @@
+package com.gameengine.components;
+
+import com.gameengine.core.CollisionLayers;
+import com.gameengine.core.Component;
+
+/**
+ * 圆形碰撞体，圆心为 Transform 位置。两个碰撞体距离小于半径之和时接触。
+ */
+public class ColliderComponent extends Component<ColliderComponent> {
+    private float radius;
+    private int layer;
+    private int mask;
+
+    public ColliderComponent(float radius, int layer) {
+        this(radius, layer, CollisionLayers.defaultMask(layer));
+    }
+
+    public ColliderComponent(float radius, int layer, int mask) {
+        this.radius = Math.max(0, radius);
+        this.layer = layer;
+        this.mask = mask;
+    }
+
+    @Override
+    public void initialize() {}
+
+    @Override
+    public void render() {}
+
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    public float getRadius() { return radius; }
+    public void setRadius(float radius) {
+        this.radius = Math.max(0, radius);
+        markChanged(); // 空间索引据此更新包围盒
+    }
+    public int getLayer() { return layer; }
+    public int getMask() { return mask; }
+
+    // 改层时同时换成该层的默认掩码
+    public void setLayer(int layer) {
+        this.layer = layer;
+        this.mask = CollisionLayers.defaultMask(layer);
+        markChanged();
+    }
+
+    public void setMask(int mask) {
+        this.mask = mask;
+        markChanged();
+    }
+}
@@ -1,16 +1,21 @@
 package com.gameengine.components;
 
+import com.gameengine.core.Archetype;
+import com.gameengine.core.ColumnBacked;
 import com.gameengine.core.Component;
 import com.gameengine.graphics.IRenderer;
-import com.gameengine.math.Vector2;
 
-public class HealthComponent extends Component<HealthComponent> {
+public class HealthComponent extends Component<HealthComponent> implements ColumnBacked {
     private int maxHealth;
     private int currentHealth;
     private boolean showHealthBar = true;
     private float barWidth = 30f;
     private float barHeight = 6f;
 
+    // 加入场景后当前血量存放在原型列中
+    private Archetype archetype;
+    private int row = -1;
+
     public HealthComponent(int maxHealth) {
         this.maxHealth = maxHealth;
         this.currentHealth = maxHealth;
@@ -19,6 +24,35 @@ public class HealthComponent extends Component<HealthComponent> {
     @Override
     public void initialize() {}
 
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        writeHealth(maxHealth);
+    }
+
+    @Override
+    public void bindColumns(Archetype archetype, int row) {
+        this.archetype = archetype;
+        this.row = row;
+        archetype.health()[row] = currentHealth;
+    }
+
+    @Override
+    public void rebindRow(int row) { this.row = row; }
+
+    @Override
+    public void unbindColumns() {
+        if (archetype == null) return;
+        currentHealth = archetype.health()[row];
+        archetype = null;
+        row = -1;
+    }
+
     @Override
     public void render() {
         if (!showHealthBar) return;
@@ -28,26 +62,34 @@ public class HealthComponent extends Component<HealthComponent> {
         // 获取角色位置
         TransformComponent transform = owner.getComponent(TransformComponent.class);
         if (transform == null) return;
-        Vector2 pos = transform.getPosition();
 
-        float healthPercent = (float)currentHealth / maxHealth;
+        float healthPercent = (float)getCurrentHealth() / maxHealth;
 
         // 血条显示在角色上方
         
-        float x = pos.x - barWidth / 2f;
-        float y = pos.y - 25f; // 上方偏移
+        float x = transform.getRenderX() - barWidth / 2f;
+        float y = transform.getRenderY() - 25f; // 上方偏移
 
         //两个血条，方便显式血量比变化
         renderer.drawRect(x, y, barWidth, barHeight, 1, 0, 0, 1);
         renderer.drawRect(x, y, barWidth * healthPercent, barHeight, 0, 1, 0, 1);
     }
     
-    public void takeDamage(int dmg) { currentHealth = Math.max(0,currentHealth-dmg); }
-    public void heal(int hp) { currentHealth = Math.min(maxHealth,currentHealth+hp); }
-    public boolean isDead() { return currentHealth <= 0; }
+    private void writeHealth(int hp) {
+        if (archetype != null) {
+            archetype.health()[row] = hp;
+            markChanged();
+        } else {
+            currentHealth = hp;
+        }
+    }
+
+    public void takeDamage(int dmg) { writeHealth(Math.max(0,getCurrentHealth()-dmg)); }
+    public void heal(int hp) { writeHealth(Math.min(maxHealth,getCurrentHealth()+hp)); }
+    public boolean isDead() { return getCurrentHealth() <= 0; }
 
     public int getMaxHealth(){return maxHealth;}
-    public int getCurrentHealth() { return currentHealth; }
+    public int getCurrentHealth() { return archetype != null ? archetype.health()[row] : currentHealth; }
     public void setShowHealthBar(boolean show) { this.showHealthBar = show; }
     public void setHealthBarSize(float width,float height) { this.barWidth=width; this.barHeight=height; }
 }
@@ -1,15 +1,23 @@
 package com.gameengine.components;
 
+import com.gameengine.core.Archetype;
+import com.gameengine.core.ColumnBacked;
 import com.gameengine.core.Component;
 import com.gameengine.math.Vector2;
 
-public class PhysicsComponent extends Component<PhysicsComponent> {
+public class PhysicsComponent extends Component<PhysicsComponent> implements ColumnBacked {
     private Vector2 velocity = new Vector2();
     private Vector2 acceleration = new Vector2();
     private float mass = 1f;
     private float friction = 0.9f;
     private boolean useGravity = false;
     private Vector2 gravity = new Vector2(0,9.8f);
+    // 未绑定列时的休眠计时，含义同 Archetype.sleepTime：负数表示休眠
+    private float sleepTime;
+
+    // 加入场景后速度、加速度、重力、摩擦和启用标记存放在原型列中，积分内核直接读写
+    private Archetype archetype;
+    private int row = -1;
 
     public PhysicsComponent() {}
     public PhysicsComponent(float mass) { this.mass = mass; }
@@ -20,22 +28,171 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
     @Override
     public void render() {}
 
-    public void applyForce(Vector2 force) { acceleration = acceleration.add(force.multiply(1f/mass)); }
-    public void applyImpulse(Vector2 impulse) { velocity = velocity.add(impulse.multiply(1f/mass)); }
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    // 只清空运动状态，质量、摩擦等配置保留
+    @Override
+    public void reset() {
+        super.reset();
+        writeVelocity(0, 0);
+        clearAcceleration();
+        writeSleepTime(0f);
+        writeEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        writeEnabled();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        writeEnabled();
+    }
+
+    @Override
+    public void bindColumns(Archetype archetype, int row) {
+        this.archetype = archetype;
+        this.row = row;
+        archetype.velocityX()[row] = velocity.x;
+        archetype.velocityY()[row] = velocity.y;
+        archetype.previousVelocityX()[row] = velocity.x;
+        archetype.previousVelocityY()[row] = velocity.y;
+        archetype.accelerationX()[row] = acceleration.x;
+        archetype.accelerationY()[row] = acceleration.y;
+        archetype.friction()[row] = friction;
+        archetype.sleepTime()[row] = sleepTime;
+        writeGravity();
+        writeEnabled();
+    }
+
+    @Override
+    public void rebindRow(int row) { this.row = row; }
+
+    @Override
+    public void unbindColumns() {
+        if (archetype == null) return;
+        velocity.set(archetype.velocityX()[row], archetype.velocityY()[row]);
+        acceleration.set(archetype.accelerationX()[row], archetype.accelerationY()[row]);
+        sleepTime = archetype.sleepTime()[row];
+        archetype = null;
+        row = -1;
+    }
+
+    private void writeVelocity(float x, float y) {
+        if (archetype != null) {
+            archetype.velocityX()[row] = x;
+            archetype.velocityY()[row] = y;
+            markChanged();
+        } else {
+            velocity.set(x, y);
+        }
+    }
+
+    private void writeAcceleration(float x, float y) {
+        if (archetype != null) {
+            archetype.accelerationX()[row] = x;
+            archetype.accelerationY()[row] = y;
+        } else {
+            acceleration.set(x, y);
+        }
+    }
+
+    // 列里存放生效的重力，未启用重力时为 0，内核不必再判断开关
+    private void writeGravity() {
+        if (archetype == null) return;
+        archetype.gravityX()[row] = useGravity ? gravity.x : 0f;
+        archetype.gravityY()[row] = useGravity ? gravity.y : 0f;
+    }
+
+    private void writeSleepTime(float time) {
+        if (archetype != null) archetype.sleepTime()[row] = time;
+        else sleepTime = time;
+    }
+
+    // 休眠的物体不参与积分；物理系统按这一列重建醒着的行段，值变化时才通知
+    private void writeEnabled() {
+        if (archetype == null) return;
+        float value = enabled && !isSleeping() ? 1f : 0f;
+        if (archetype.physicsEnabled()[row] == value) return;
+        archetype.physicsEnabled()[row] = value;
+        archetype.markEnabledChanged();
+    }
+
+    public boolean isSleeping() {
+        return (archetype != null ? archetype.sleepTime()[row] : sleepTime) < 0f;
+    }
+
+    // 唤醒并重新开始计时；施力、冲量和非零速度都会调用，持续受力的物体不会入睡
+    public void wake() {
+        boolean sleeping = isSleeping();
+        writeSleepTime(0f);
+        if (sleeping) writeEnabled();
+    }
+
+    // 立即休眠：速度与加速度清零，直到被唤醒
+    public void sleep() {
+        if (isSleeping()) return;
+        if (getVelocityX() != 0f || getVelocityY() != 0f) writeVelocity(0, 0);
+        clearAcceleration();
+        writeSleepTime(-1f);
+        writeEnabled();
+    }
+
+    public void applyForce(Vector2 force) {
+        writeAcceleration(getAccelerationX() + force.x / mass, getAccelerationY() + force.y / mass);
+        wake();
+    }
+    public void applyImpulse(Vector2 impulse) {
+        writeVelocity(getVelocityX() + impulse.x / mass, getVelocityY() + impulse.y / mass);
+        wake();
+    }
+
+    public Vector2 getVelocity() {
+        if (archetype != null) return new Vector2(archetype.velocityX()[row], archetype.velocityY()[row]);
+        return new Vector2(velocity);
+    }
+    public void setVelocity(Vector2 velocity) { setVelocity(velocity.x, velocity.y); }
+    public Vector2 getAcceleration() { return new Vector2(getAccelerationX(), getAccelerationY()); }
+    public void setAcceleration(Vector2 acceleration) {
+        writeAcceleration(acceleration.x, acceleration.y);
+        if (acceleration.x != 0f || acceleration.y != 0f) wake();
+    }
+    public float getAccelerationX() { return archetype != null ? archetype.accelerationX()[row] : acceleration.x; }
+    public float getAccelerationY() { return archetype != null ? archetype.accelerationY()[row] : acceleration.y; }
 
-    public Vector2 getVelocity() { return new Vector2(velocity); }
-    public void setVelocity(Vector2 velocity) { this.velocity = new Vector2(velocity); }
-    public Vector2 getAcceleration() { return new Vector2(acceleration); }
-    public void setAcceleration(Vector2 acceleration) { this.acceleration = new Vector2(acceleration); }
+    // 不分配内存的访问方式：基本类型读写与输出参数
+    public float getVelocityX() { return archetype != null ? archetype.velocityX()[row] : velocity.x; }
+    public float getVelocityY() { return archetype != null ? archetype.velocityY()[row] : velocity.y; }
+    // 设为零速度不唤醒：休眠的物体本来就静止
+    public void setVelocity(float x, float y) {
+        writeVelocity(x, y);
+        if (x != 0f || y != 0f) wake();
+    }
+    public Vector2 getVelocity(Vector2 out) { return out.set(getVelocityX(), getVelocityY()); }
+    // 上一步提交的速度快照，本步内不会变化
+    public float getPreviousVelocityX() { return archetype != null ? archetype.previousVelocityX()[row] : velocity.x; }
+    public float getPreviousVelocityY() { return archetype != null ? archetype.previousVelocityY()[row] : velocity.y; }
+    public void clearAcceleration() { writeAcceleration(0, 0); }
+    // 只读引用，调用方不得修改
+    public Vector2 peekGravity() { return gravity; }
 
     public float getMass() { return mass; }
     public void setMass(float mass) { this.mass = Math.max(0.1f, mass); }
 
     public float getFriction() { return friction; }
-    public void setFriction(float friction) { this.friction = Math.max(0, Math.min(1, friction)); }
+    public void setFriction(float friction) {
+        this.friction = Math.max(0, Math.min(1, friction));
+        if (archetype != null) archetype.friction()[row] = this.friction;
+    }
 
     public boolean isUseGravity() { return useGravity; }
-    public void setUseGravity(boolean useGravity) { this.useGravity = useGravity; }
+    public void setUseGravity(boolean useGravity) { this.useGravity = useGravity; writeGravity(); }
     public Vector2 getGravity() { return new Vector2(gravity); }
-    public void setGravity(Vector2 gravity) { this.gravity = new Vector2(gravity); }
+    public void setGravity(Vector2 gravity) { this.gravity.set(gravity); writeGravity(); }
 }
@@ -49,6 +49,17 @@ public class RenderComponent extends Component<RenderComponent> {
     @Override
     public void initialize() {
     }
+
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.visible = true;
+    }
     
     @Override
     public void render() {
@@ -61,20 +72,21 @@ public class RenderComponent extends Component<RenderComponent> {
             return;
         }
         
-        Vector2 position = transform.getPosition();
+        float x = transform.getRenderX();
+        float y = transform.getRenderY();
         
         switch (renderType) {
             case RECTANGLE:
-                renderer.drawRect(position.x, position.y, size.x, size.y, 
+                renderer.drawRect(x, y, size.x, size.y, 
                                 color.r, color.g, color.b, color.a);
                 break;
             case CIRCLE:
-                renderer.drawCircle(position.x + size.x/2, position.y + size.y/2, 
+                renderer.drawCircle(x + size.x/2, y + size.y/2, 
                                   size.x/2, 16, color.r, color.g, color.b, color.a);
                 break;
             case LINE:
-                renderer.drawLine(position.x, position.y, 
-                                position.x + size.x, position.y + size.y,
+                renderer.drawLine(x, y, 
+                                x + size.x, y + size.y,
                                 color.r, color.g, color.b, color.a);
                 break;
         }
@@ -84,20 +96,26 @@ public class RenderComponent extends Component<RenderComponent> {
         this.renderer = renderer;
     }
     
+    // 外观变化时标记变更，录制和渲染上传只处理被改过的对象
     public void setColor(Color color) {
         this.color = color;
+        markChanged();
     }
     
     public void setColor(float r, float g, float b, float a) {
         this.color = new Color(r, g, b, a);
+        markChanged();
     }
     
     public void setSize(Vector2 size) {
         this.size = new Vector2(size);
+        markChanged();
     }
     
     public void setVisible(boolean visible) {
+        if (this.visible == visible) return;
         this.visible = visible;
+        markChanged();
     }
     
     public RenderType getRenderType() {
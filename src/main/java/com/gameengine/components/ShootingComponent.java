@@ -1,20 +1,38 @@
 package com.gameengine.components;
 
+import com.gameengine.core.CollisionLayers;
 import com.gameengine.core.Component;
+import com.gameengine.core.EntityPool;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.SpatialIndex;
+import com.gameengine.core.Tags;
+import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
+import java.util.function.LongConsumer;
 
 /**
  * 射击组件 - 支持自动和手动射击
  */
 public class ShootingComponent extends Component<ShootingComponent> {
+    public static final String BULLET_POOL = "bullets";
+    private static final RenderComponent.Color PLAYER_BULLET_COLOR = new RenderComponent.Color(0,0.5f,1f,1f);
+    private static final RenderComponent.Color ENEMY_BULLET_COLOR = new RenderComponent.Color(1f,0.3f,0.3f,1f);
+
     private float fireRate;      // 发射速率（秒/发）
     private float fireTimer;     // 发射计时器
     private float bulletSpeed;   // 子弹速度
     private int bulletDamage;    // 子弹伤害
     private boolean autoShoot;   // 自动射击模式
+    private float targetRange = 600f; // 玩家自动瞄准的搜索半径
+
+    // 最近目标的查询状态，回调复用同一个对象
+    private final LongConsumer nearestVisitor = this::visitTarget;
+    private Scene targetScene;
+    private GameObject nearestTarget;
+    private float nearestDistSq;
+    private float originX, originY;
 
     public ShootingComponent() {
         this(0.3f, 500.0f, 10, false); // 默认手动射击
@@ -37,6 +55,18 @@ public class ShootingComponent extends Component<ShootingComponent> {
     public void render() {
         
     }
+
+    // 只读目标的位置；生成子弹经 Scene.defer 延迟到阶段结束
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.fireTimer = 0;
+    }
     @Override
     public void update(float deltaTime) {
         if (!enabled) return;
@@ -71,16 +101,50 @@ public class ShootingComponent extends Component<ShootingComponent> {
         Scene scene = getOwner().getScene();
         if (scene == null) return null;
 
-        if (getOwner().getName().equals("Player")) {
-            return scene.getGameObjects().stream()
-                .filter(obj -> obj.getName().startsWith("Enemy") && obj.isActive())
-                .findFirst()
-                .orElse(null);
+        if (getOwner().hasTag(Tags.PLAYER)) {
+            GameObject nearest = findNearestEnemy(scene);
+            if (nearest != null) return nearest;
+            // 范围内没有或场景不维护空间索引时，退回任取一个存活的敌人
+            for (GameObject obj : scene.findByTag(Tags.ENEMY)) {
+                if (obj.isActive()) return obj;
+            }
+            return null;
         } else {
-            return scene.getGameObjects().stream()
-                .filter(obj -> obj.getName().equals("Player") && obj.isActive())
-                .findFirst()
-                .orElse(null);
+            GameObject player = scene.findFirstByTag(Tags.PLAYER);
+            return player != null && player.isActive() ? player : null;
+        }
+    }
+
+    /**
+     * 经场景的空间索引找 targetRange 内最近的存活敌人。索引的查询可以并发，
+     * 分块并行的对象更新中直接查询，不需要加锁。
+     */
+    private GameObject findNearestEnemy(Scene scene) {
+        TransformComponent transform = getOwner().getComponent(TransformComponent.class);
+        SpatialIndex index = scene.getSpatialIndex();
+        if (transform == null || index.size() == 0) return null;
+        targetScene = scene;
+        nearestTarget = null;
+        nearestDistSq = Float.POSITIVE_INFINITY;
+        originX = transform.getX();
+        originY = transform.getY();
+        index.queryRadius(originX, originY, targetRange, nearestVisitor);
+        GameObject result = nearestTarget;
+        targetScene = null;
+        nearestTarget = null;
+        return result;
+    }
+
+    private void visitTarget(long handle) {
+        GameObject obj = targetScene.resolve(handle);
+        if (obj == null || !obj.isActive() || !obj.hasTag(Tags.ENEMY)) return;
+        TransformComponent t = obj.getComponent(TransformComponent.class);
+        float dx = t.getX() - originX, dy = t.getY() - originY;
+        float distSq = dx * dx + dy * dy;
+        // 距离相同时取句柄较小的，结果与索引的遍历次序无关
+        if (distSq < nearestDistSq || (distSq == nearestDistSq && handle < nearestTarget.getHandle())) {
+            nearestDistSq = distSq;
+            nearestTarget = obj;
         }
     }
 
@@ -103,32 +167,60 @@ public class ShootingComponent extends Component<ShootingComponent> {
         if (targetTransform != null) shootTowards(targetTransform.getPosition());
     }
 
-    private  static int BulletCount = 0;
-    private void createBullet(Vector2 position, Vector2 direction) {
-        GameObject bullet = new GameObject("Bullet" + BulletCount++);
-        // 1. 直接放在玩家位置
-        bullet.addComponent(new TransformComponent(new Vector2(position)));
+    /**
+     * 场景的子弹池。子弹失活后由场景自动归还，可在场景初始化时预热。
+     */
+    public static EntityPool bulletPool(Scene scene) {
+        return scene.getEntityPool(BULLET_POOL, () -> newBullet(scene.getRenderer()));
+    }
 
-        // 2. 渲染
-        RenderComponent render = new RenderComponent(RenderComponent.RenderType.CIRCLE, new Vector2(8,8),
-            getOwner().getName().equals("Player")
-                ? new RenderComponent.Color(0,0.5f,1f,1f)
-                : new RenderComponent.Color(1f,0.3f,0.3f,1f));
-        render.setRenderer(getOwner().getScene().getRenderer());
+    private static GameObject newBullet(IRenderer renderer) {
+        // 身份由场景分配的句柄区分，名字只表示种类
+        GameObject bullet = new GameObject("Bullet");
+        bullet.addTag(Tags.BULLET);
+        bullet.addComponent(new TransformComponent());
+
+        RenderComponent render = new RenderComponent(RenderComponent.RenderType.CIRCLE, new Vector2(8,8), ENEMY_BULLET_COLOR);
+        render.setRenderer(renderer);
         bullet.addComponent(render);
 
-        // 3. 物理恒速
         PhysicsComponent physics = new PhysicsComponent(0);
-        physics.setVelocity(direction.multiply(bulletSpeed));
         physics.setFriction(1.0f); // 保持恒速
         bullet.addComponent(physics);
 
+        bullet.addComponent(new BulletComponent(0, null));
+        // 子弹按点处理，半径为 0；层位在发射时按射手设定
+        bullet.addComponent(new ColliderComponent(0, CollisionLayers.ENEMY_BULLET));
+        return bullet;
+    }
+
+    private void createBullet(Vector2 position, Vector2 direction) {
+        Scene scene = getOwner().getScene();
+        if (scene == null) return;
+        // 对象池不是线程安全的，取子弹和加入场景都作为结构性操作延迟执行
+        scene.defer(() -> spawnBullet(scene, position, direction));
+    }
+
+    private void spawnBullet(Scene scene, Vector2 position, Vector2 direction) {
+        GameObject bullet = bulletPool(scene).acquire();
+
+        // 1. 直接放在玩家位置
+        bullet.getComponent(TransformComponent.class).setPosition(position);
+
+        // 2. 渲染
+        bullet.getComponent(RenderComponent.class)
+            .setColor(getOwner().hasTag(Tags.PLAYER) ? PLAYER_BULLET_COLOR : ENEMY_BULLET_COLOR);
+
+        // 3. 物理恒速
+        bullet.getComponent(PhysicsComponent.class).setVelocity(direction.multiply(bulletSpeed));
+
         // 4. 子弹逻辑
-        bullet.addComponent(new BulletComponent(bulletDamage, getOwner()));
+        bullet.getComponent(BulletComponent.class).configure(bulletDamage, getOwner());
+        bullet.getComponent(ColliderComponent.class)
+            .setLayer(getOwner().hasTag(Tags.PLAYER) ? CollisionLayers.PLAYER_BULLET : CollisionLayers.ENEMY_BULLET);
 
         // 5. 添加到场景
-        Scene scene = getOwner().getScene();
-        if (scene != null) scene.addGameObject(bullet);
+        scene.addGameObject(bullet);
     }
 
 
@@ -139,6 +231,8 @@ public class ShootingComponent extends Component<ShootingComponent> {
     public void setBulletSpeed(float bulletSpeed) { this.bulletSpeed = Math.max(0, bulletSpeed); }
     public int getBulletDamage() { return bulletDamage; }
     public void setBulletDamage(int bulletDamage) { this.bulletDamage = Math.max(1, bulletDamage); }
+    public float getTargetRange() { return targetRange; }
+    public void setTargetRange(float targetRange) { this.targetRange = Math.max(0, targetRange); }
     public boolean isAutoShoot() { return autoShoot; }
     public void setAutoShoot(boolean autoShoot) { this.autoShoot = autoShoot; }
     public float getFireTimer() { return fireTimer; }
@@ -1,13 +1,19 @@
 package com.gameengine.components;
 
+import com.gameengine.core.Archetype;
+import com.gameengine.core.ColumnBacked;
 import com.gameengine.core.Component;
 import com.gameengine.math.Vector2;
 
-public class TransformComponent extends Component<TransformComponent> {
+public class TransformComponent extends Component<TransformComponent> implements ColumnBacked {
     private Vector2 position;
     private Vector2 scale;
     private float rotation;
 
+    // 加入场景后位置存放在原型列中
+    private Archetype archetype;
+    private int row = -1;
+
     public TransformComponent() {
         this.position = new Vector2();
         this.scale = new Vector2(1,1);
@@ -30,15 +36,106 @@ public class TransformComponent extends Component<TransformComponent> {
     @Override
     public void render() {}
 
-    public Vector2 getPosition() { return new Vector2(position); }
-    public void setPosition(Vector2 position) { this.position = new Vector2(position); }
+    @Override
+    public boolean isThreadConfined() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        writePosition(0, 0);
+        this.scale.set(1, 1);
+        this.rotation = 0;
+    }
+
+    @Override
+    public void bindColumns(Archetype archetype, int row) {
+        this.archetype = archetype;
+        this.row = row;
+        archetype.positionX()[row] = position.x;
+        archetype.positionY()[row] = position.y;
+        // 新加入的实体没有上一步，插值起点取当前位置
+        archetype.previousPositionX()[row] = position.x;
+        archetype.previousPositionY()[row] = position.y;
+    }
+
+    @Override
+    public void rebindRow(int row) { this.row = row; }
+
+    @Override
+    public void unbindColumns() {
+        if (archetype == null) return;
+        position.set(archetype.positionX()[row], archetype.positionY()[row]);
+        archetype = null;
+        row = -1;
+    }
+
+    private void writePosition(float x, float y) {
+        if (archetype != null) {
+            archetype.positionX()[row] = x;
+            archetype.positionY()[row] = y;
+            markChanged();
+        } else {
+            position.set(x, y);
+        }
+    }
+
+    public Vector2 getPosition() {
+        if (archetype != null) return new Vector2(archetype.positionX()[row], archetype.positionY()[row]);
+        return new Vector2(position);
+    }
+    public void setPosition(Vector2 position) { writePosition(position.x, position.y); }
+
+    // 不分配内存的访问方式：基本类型读写与输出参数
+    public float getX() { return archetype != null ? archetype.positionX()[row] : position.x; }
+    public float getY() { return archetype != null ? archetype.positionY()[row] : position.y; }
+    public void setXY(float x, float y) { writePosition(x, y); }
+    public Vector2 getPosition(Vector2 out) { return out.set(getX(), getY()); }
+    public void translate(float dx, float dy) { writePosition(getX() + dx, getY() + dy); }
+
+    // 上一步提交的位置快照，本步内不会变化，读取其他实体时使用
+    public float getPreviousX() { return archetype != null ? archetype.previousPositionX()[row] : position.x; }
+    public float getPreviousY() { return archetype != null ? archetype.previousPositionY()[row] : position.y; }
+
+    /**
+     * 渲染用位置：按场景的插值系数在上一个固定步和当前固定步之间混合。
+     * 未绑定原型列时没有历史位置，直接返回当前位置。
+     */
+    public float getRenderX() {
+        if (archetype == null) return position.x;
+        float prev = archetype.previousPositionX()[row];
+        return prev + (archetype.positionX()[row] - prev) * renderAlpha();
+    }
+
+    public float getRenderY() {
+        if (archetype == null) return position.y;
+        float prev = archetype.previousPositionY()[row];
+        return prev + (archetype.positionY()[row] - prev) * renderAlpha();
+    }
+
+    // 瞬移：同时改写上一步位置，避免插值拉出一条轨迹
+    public void teleport(float x, float y) {
+        writePosition(x, y);
+        if (archetype != null) {
+            archetype.previousPositionX()[row] = x;
+            archetype.previousPositionY()[row] = y;
+        }
+    }
+
+    private float renderAlpha() {
+        return owner != null && owner.getScene() != null ? owner.getScene().getInterpolationAlpha() : 1f;
+    }
+
     public Vector2 getScale() { return new Vector2(scale); }
-    public void setScale(Vector2 scale) { this.scale = new Vector2(scale); }
+    // 只读引用，调用方不得修改
+    public Vector2 peekScale() { return scale; }
+    public void setScale(Vector2 scale) { this.scale = new Vector2(scale); markChanged(); }
     public float getRotation() { return rotation; }
-    public void setRotation(float rotation) { this.rotation = rotation; }
+    public void setRotation(float rotation) { this.rotation = rotation; markChanged(); }
 
-    public void moveTo(Vector2 newPosition) { this.position = new Vector2(newPosition); }
-    public void translate(Vector2 delta) { this.position = position.add(delta); }
-    public void rotate(float angle) { this.rotation += angle; }
-    public void scale(Vector2 scaleFactor) { this.scale = new Vector2(this.scale.x*scaleFactor.x, this.scale.y*scaleFactor.y); }
+    public void moveTo(Vector2 newPosition) { writePosition(newPosition.x, newPosition.y); }
+    public void translate(Vector2 delta) { translate(delta.x, delta.y); }
+    public void rotate(float angle) { this.rotation += angle; markChanged(); }
+    public void scale(Vector2 scaleFactor) { this.scale = new Vector2(this.scale.x*scaleFactor.x, this.scale.y*scaleFactor.y); markChanged(); }
 }
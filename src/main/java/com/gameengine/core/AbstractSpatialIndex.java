@@ -0,0 +1,317 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 空间索引实现的公共部分：按句柄槽位保存紧包围盒、给每次调用计时，
+ * 并对实现交来的候选做去重和精确测试。实现只需维护自己的加速结构，
+ * 在查询时把可能相交的槽位交给 {@link #candidate(Query, int)} 或 {@link #rayCandidate(Query, int)}。
+ * 查询的形状、去重标记和遍历栈都放在每次调用取得的 {@link Query} 里，
+ * 多个线程可以同时查询，回调中也可以再查询同一个索引。
+ */
+public abstract class AbstractSpatialIndex implements SpatialIndex {
+    private static final int QUERY_BOX = 0;
+    private static final int QUERY_CIRCLE = 1;
+
+    protected final SpatialIndexStats stats = new SpatialIndexStats();
+
+    // 按 EntityHandle.index 存放，空槽位的句柄为 NONE
+    protected long[] handles = new long[64];
+    protected float[] minX = new float[64], minY = new float[64];
+    protected float[] maxX = new float[64], maxY = new float[64];
+    private int size;
+
+    // 每个线程一串查询上下文，嵌套查询沿链取下一个空闲的
+    private final ThreadLocal<Query> queries = ThreadLocal.withInitial(Query::new);
+
+    /**
+     * 一次查询的全部可变状态。实现可以用 {@link #stack(int)} 作遍历栈，
+     * 射线查询时读 ray* 字段，rayMaxT 随命中缩短，可用来剪枝。
+     */
+    protected static final class Query {
+        private int mode;
+        private float qMinX, qMinY, qMaxX, qMaxY;
+        private float qX, qY, qRadiusSq;
+        private LongConsumer action;
+
+        public float rayOriginX, rayOriginY, rayDirX, rayDirY;
+        public float rayMaxT;
+        private float rayInvX, rayInvY;
+        private int raySlot;
+
+        // 同一查询内已经处理过的槽位不再重复测试
+        private int[] stamps = new int[64];
+        private int stamp;
+        private int[] stack = new int[64];
+        private long candidates, results;
+
+        private boolean busy;
+        private Query nested;
+
+        // 至少能放 capacity 个元素的遍历栈，扩容时保留原有内容
+        public int[] stack(int capacity) {
+            if (capacity > stack.length) stack = Arrays.copyOf(stack, Math.max(capacity, stack.length * 2));
+            return stack;
+        }
+    }
+
+    @Override
+    public final void insert(long handle, float minX, float minY, float maxX, float maxY) {
+        long start = System.nanoTime();
+        int slot = EntityHandle.index(handle);
+        ensureSlots(slot + 1);
+        if (handles[slot] != EntityHandle.NONE) {
+            onRemove(slot);
+            size--;
+        }
+        handles[slot] = handle;
+        setBounds(slot, minX, minY, maxX, maxY);
+        size++;
+        onInsert(slot);
+        stats.recordUpdate(System.nanoTime() - start);
+    }
+
+    @Override
+    public final void move(long handle, float minX, float minY, float maxX, float maxY) {
+        if (!contains(handle)) {
+            insert(handle, minX, minY, maxX, maxY);
+            return;
+        }
+        long start = System.nanoTime();
+        int slot = EntityHandle.index(handle);
+        setBounds(slot, minX, minY, maxX, maxY);
+        onMove(slot);
+        stats.recordUpdate(System.nanoTime() - start);
+    }
+
+    @Override
+    public final void remove(long handle) {
+        if (!contains(handle)) return;
+        long start = System.nanoTime();
+        int slot = EntityHandle.index(handle);
+        onRemove(slot);
+        handles[slot] = EntityHandle.NONE;
+        size--;
+        stats.recordUpdate(System.nanoTime() - start);
+    }
+
+    @Override
+    public final boolean contains(long handle) {
+        if (handle == EntityHandle.NONE) return false;
+        int slot = EntityHandle.index(handle);
+        return slot >= 0 && slot < handles.length && handles[slot] == handle;
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    @Override
+    public final void clear() {
+        Arrays.fill(handles, EntityHandle.NONE);
+        size = 0;
+        onClear();
+    }
+
+    @Override
+    public final void queryAabb(float minX, float minY, float maxX, float maxY, LongConsumer action) {
+        long start = System.nanoTime();
+        Query q = acquire();
+        q.mode = QUERY_BOX;
+        q.qMinX = minX;
+        q.qMinY = minY;
+        q.qMaxX = maxX;
+        q.qMaxY = maxY;
+        runQuery(q, minX, minY, maxX, maxY, action);
+        release(q, start);
+    }
+
+    @Override
+    public final void queryRadius(float x, float y, float radius, LongConsumer action) {
+        long start = System.nanoTime();
+        Query q = acquire();
+        q.mode = QUERY_CIRCLE;
+        q.qX = x;
+        q.qY = y;
+        q.qRadiusSq = radius * radius;
+        runQuery(q, x - radius, y - radius, x + radius, y + radius, action);
+        release(q, start);
+    }
+
+    @Override
+    public final boolean raycast(float originX, float originY, float dirX, float dirY, float maxDistance, RayHit hit) {
+        long start = System.nanoTime();
+        Query q = acquire();
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        boolean found = false;
+        if (length > 0 && maxDistance >= 0 && size > 0) {
+            q.rayOriginX = originX;
+            q.rayOriginY = originY;
+            q.rayDirX = dirX / length;
+            q.rayDirY = dirY / length;
+            q.rayInvX = 1f / q.rayDirX;
+            q.rayInvY = 1f / q.rayDirY;
+            q.rayMaxT = maxDistance;
+            q.raySlot = -1;
+            nextStamp(q);
+            traceRay(q);
+            found = q.raySlot >= 0;
+            if (found) {
+                hit.handle = handles[q.raySlot];
+                hit.distance = q.rayMaxT;
+            }
+        }
+        release(q, start);
+        return found;
+    }
+
+    @Override
+    public SpatialIndexStats getStats() {
+        return stats;
+    }
+
+    // 条目的紧包围盒已经写好
+    protected abstract void onInsert(int slot);
+
+    // 紧包围盒已更新为新值，实现自行保存需要比较的旧状态
+    protected abstract void onMove(int slot);
+
+    // 调用时条目仍在，包围盒为最后一次写入的值
+    protected abstract void onRemove(int slot);
+
+    protected abstract void onClear();
+
+    // 把与区域可能相交的槽位交给 candidate，可以有重复或多余；只能读索引，遍历状态放在 q 里
+    protected abstract void collect(Query q, float minX, float minY, float maxX, float maxY);
+
+    // 把射线可能经过的槽位交给 rayCandidate；q.rayMaxT 随命中缩短，可用来提前结束
+    protected abstract void traceRay(Query q);
+
+    // 槽位容量增长后调用，实现据此扩充按槽位存放的数组
+    protected abstract void growSlots(int capacity);
+
+    protected final int slotCapacity() {
+        return handles.length;
+    }
+
+    protected final boolean occupied(int slot) {
+        return handles[slot] != EntityHandle.NONE;
+    }
+
+    protected final void candidate(Query q, int slot) {
+        if (q.stamps[slot] == q.stamp) return;
+        q.stamps[slot] = q.stamp;
+        q.candidates++;
+        boolean hit;
+        if (q.mode == QUERY_BOX) {
+            hit = maxX[slot] >= q.qMinX && minX[slot] <= q.qMaxX && maxY[slot] >= q.qMinY && minY[slot] <= q.qMaxY;
+        } else {
+            // 圆心到包围盒最近点的距离
+            float dx = q.qX - Math.max(minX[slot], Math.min(q.qX, maxX[slot]));
+            float dy = q.qY - Math.max(minY[slot], Math.min(q.qY, maxY[slot]));
+            hit = dx * dx + dy * dy <= q.qRadiusSq;
+        }
+        if (hit) {
+            q.results++;
+            q.action.accept(handles[slot]);
+        }
+    }
+
+    protected final void rayCandidate(Query q, int slot) {
+        if (q.stamps[slot] == q.stamp) return;
+        q.stamps[slot] = q.stamp;
+        q.candidates++;
+        float t = rayEnter(q, minX[slot], minY[slot], maxX[slot], maxY[slot]);
+        if (t < 0) return;
+        if (q.raySlot < 0 || t < q.rayMaxT || slot < q.raySlot) {
+            q.rayMaxT = t;
+            q.raySlot = slot;
+        }
+    }
+
+    /**
+     * 射线进入盒子的距离，不超过 q.rayMaxT；未命中时返回 -1。
+     * 方向分量为 0 时按平行于该轴处理，避免 0 * 无穷产生 NaN。
+     */
+    protected final float rayEnter(Query q, float boxMinX, float boxMinY, float boxMaxX, float boxMaxY) {
+        float tMin = 0f, tMax = q.rayMaxT;
+        if (q.rayDirX == 0f) {
+            if (q.rayOriginX < boxMinX || q.rayOriginX > boxMaxX) return -1f;
+        } else {
+            float t1 = (boxMinX - q.rayOriginX) * q.rayInvX;
+            float t2 = (boxMaxX - q.rayOriginX) * q.rayInvX;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) return -1f;
+        }
+        if (q.rayDirY == 0f) {
+            if (q.rayOriginY < boxMinY || q.rayOriginY > boxMaxY) return -1f;
+        } else {
+            float t1 = (boxMinY - q.rayOriginY) * q.rayInvY;
+            float t2 = (boxMaxY - q.rayOriginY) * q.rayInvY;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) return -1f;
+        }
+        return tMin;
+    }
+
+    private void runQuery(Query q, float minX, float minY, float maxX, float maxY, LongConsumer action) {
+        if (size == 0) return;
+        q.action = action;
+        nextStamp(q);
+        collect(q, minX, minY, maxX, maxY);
+    }
+
+    // 当前线程上第一个空闲的上下文；回调里再次查询时用链上的下一个
+    private Query acquire() {
+        Query q = queries.get();
+        while (q.busy) {
+            if (q.nested == null) q.nested = new Query();
+            q = q.nested;
+        }
+        q.busy = true;
+        q.candidates = 0;
+        q.results = 0;
+        if (q.stamps.length < handles.length) q.stamps = Arrays.copyOf(q.stamps, handles.length);
+        return q;
+    }
+
+    private void release(Query q, long start) {
+        q.action = null;
+        q.busy = false;
+        stats.recordQuery(System.nanoTime() - start, q.candidates, q.results);
+    }
+
+    private static void nextStamp(Query q) {
+        if (++q.stamp == 0) {
+            Arrays.fill(q.stamps, 0);
+            q.stamp = 1;
+        }
+    }
+
+    private void setBounds(int slot, float x0, float y0, float x1, float y1) {
+        minX[slot] = Math.min(x0, x1);
+        minY[slot] = Math.min(y0, y1);
+        maxX[slot] = Math.max(x0, x1);
+        maxY[slot] = Math.max(y0, y1);
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity <= handles.length) return;
+        int n = Math.max(capacity, handles.length * 2);
+        handles = Arrays.copyOf(handles, n);
+        minX = Arrays.copyOf(minX, n);
+        minY = Arrays.copyOf(minY, n);
+        maxX = Arrays.copyOf(maxX, n);
+        maxY = Arrays.copyOf(maxY, n);
+        growSlots(n);
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "[size=" + size + " " + stats + "]";
+    }
+}
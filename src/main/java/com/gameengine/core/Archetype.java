@@ -0,0 +1,261 @@
+package com.gameengine.core;
+
+import com.gameengine.components.HealthComponent;
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import java.util.Arrays;
+
+/**
+ * 原型：组件集合完全相同的实体放在同一个原型里，
+ * 热数据（位置、速度、血量）以紧凑的基本类型列存放，按行线性遍历。
+ */
+public final class Archetype {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int POSITION_BIT = ComponentTypes.idOf(TransformComponent.class);
+    private static final int VELOCITY_BIT = ComponentTypes.idOf(PhysicsComponent.class);
+    private static final int HEALTH_BIT = ComponentTypes.idOf(HealthComponent.class);
+
+    private final long signature;
+    private final int[] typeIds;                                    // 列下标 -> 类型 ID
+    private final int[] columnOf = new int[ComponentTypes.MAX_TYPES]; // 类型 ID -> 列下标
+    private final boolean hasPosition;
+    private final boolean hasVelocity;
+    private final boolean hasHealth;
+
+    private GameObject[] entities;
+    private Component<?>[][] components; // [类型下标][行]
+    // 双缓冲：pos/vel 是本步正在写入的状态，prev* 是上一步提交的只读快照，
+    // 固定步开始时由 swapBuffers() 提交；其他实体的读取走快照，渲染插值也以它为起点
+    private float[] posX, posY;
+    private float[] prevX, prevY;
+    private float[] velX, velY;
+    private float[] prevVelX, prevVelY;
+    // 积分内核需要的其余物理参数也按列存放：加速度、生效的重力、摩擦系数，
+    // 以及启用标记（1 为启用、0 为停用，用浮点存放便于向量内核生成掩码）
+    private float[] accX, accY, gravX, gravY, friction, physicsEnabled;
+    // 休眠计时：连续静止的秒数，负数表示已休眠（此时 physicsEnabled 为 0）
+    private float[] sleepTime;
+    // 启用列有行变化（入睡、唤醒、停用、增删行）时置位，物理系统据此重建醒着的行段
+    private boolean enabledChanged = true;
+    private int[] health;
+    // 变更检测：每行进入存储的变更刻，以及每个组件最近一次被修改的变更刻
+    private long[] addedTicks;
+    private long[][] changeTicks; // [类型下标][行]
+    private int size;
+
+    Archetype(long signature) {
+        this.signature = signature;
+        this.typeIds = new int[Long.bitCount(signature)];
+        Arrays.fill(columnOf, -1);
+        int column = 0;
+        for (int id = 0; id < ComponentTypes.MAX_TYPES; id++) {
+            if ((signature & (1L << id)) != 0) {
+                typeIds[column] = id;
+                columnOf[id] = column++;
+            }
+        }
+        this.hasPosition = hasType(POSITION_BIT);
+        this.hasVelocity = hasType(VELOCITY_BIT);
+        this.hasHealth = hasType(HEALTH_BIT);
+
+        this.entities = new GameObject[INITIAL_CAPACITY];
+        this.components = new Component<?>[typeIds.length][INITIAL_CAPACITY];
+        this.addedTicks = new long[INITIAL_CAPACITY];
+        this.changeTicks = new long[typeIds.length][INITIAL_CAPACITY];
+        if (hasPosition) {
+            posX = new float[INITIAL_CAPACITY]; posY = new float[INITIAL_CAPACITY];
+            prevX = new float[INITIAL_CAPACITY]; prevY = new float[INITIAL_CAPACITY];
+        }
+        if (hasVelocity) {
+            velX = new float[INITIAL_CAPACITY]; velY = new float[INITIAL_CAPACITY];
+            prevVelX = new float[INITIAL_CAPACITY]; prevVelY = new float[INITIAL_CAPACITY];
+            accX = new float[INITIAL_CAPACITY]; accY = new float[INITIAL_CAPACITY];
+            gravX = new float[INITIAL_CAPACITY]; gravY = new float[INITIAL_CAPACITY];
+            friction = new float[INITIAL_CAPACITY]; physicsEnabled = new float[INITIAL_CAPACITY];
+            sleepTime = new float[INITIAL_CAPACITY];
+        }
+        if (hasHealth) health = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    // addedTick 为实体进入存储时的变更刻，迁移原型时沿用；各组件的变更刻先记为 tick
+    int add(GameObject obj, long addedTick, long tick) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        entities[row] = obj;
+        addedTicks[row] = addedTick;
+        for (int t = 0; t < typeIds.length; t++) {
+            components[t][row] = obj.getComponent(typeIds[t]);
+            changeTicks[t][row] = tick;
+        }
+        for (Component<?>[] column : components) {
+            if (column[row] instanceof ColumnBacked) ((ColumnBacked) column[row]).bindColumns(this, row);
+        }
+        obj.archetype = this;
+        obj.archetypeRow = row;
+        if (hasVelocity) enabledChanged = true;
+        return row;
+    }
+
+    // swap-remove：最后一行搬到被删除的位置
+    void remove(int row) {
+        GameObject removed = entities[row];
+        for (Component<?>[] column : components) {
+            if (column[row] instanceof ColumnBacked) ((ColumnBacked) column[row]).unbindColumns();
+        }
+        removed.archetype = null;
+        removed.archetypeRow = -1;
+
+        int last = --size;
+        if (hasVelocity) enabledChanged = true;
+        if (row != last) {
+            GameObject moved = entities[last];
+            entities[row] = moved;
+            addedTicks[row] = addedTicks[last];
+            for (Component<?>[] column : components) {
+                column[row] = column[last];
+                if (column[row] instanceof ColumnBacked) ((ColumnBacked) column[row]).rebindRow(row);
+            }
+            for (long[] ticks : changeTicks) ticks[row] = ticks[last];
+            if (hasPosition) {
+                posX[row] = posX[last]; posY[row] = posY[last];
+                prevX[row] = prevX[last]; prevY[row] = prevY[last];
+            }
+            if (hasVelocity) {
+                velX[row] = velX[last]; velY[row] = velY[last];
+                prevVelX[row] = prevVelX[last]; prevVelY[row] = prevVelY[last];
+                accX[row] = accX[last]; accY[row] = accY[last];
+                gravX[row] = gravX[last]; gravY[row] = gravY[last];
+                friction[row] = friction[last]; physicsEnabled[row] = physicsEnabled[last];
+                sleepTime[row] = sleepTime[last];
+            }
+            if (hasHealth) health[row] = health[last];
+            moved.archetypeRow = row;
+        }
+        entities[last] = null;
+        for (Component<?>[] column : components) column[last] = null;
+    }
+
+    // 提交本步写入的位置和速度，成为下一步所有读者看到的快照
+    void swapBuffers() {
+        if (size == 0) return;
+        if (hasPosition) {
+            System.arraycopy(posX, 0, prevX, 0, size);
+            System.arraycopy(posY, 0, prevY, 0, size);
+        }
+        if (hasVelocity) {
+            System.arraycopy(velX, 0, prevVelX, 0, size);
+            System.arraycopy(velY, 0, prevVelY, 0, size);
+        }
+    }
+
+    // 记录某个组件在 tick 被修改；原型里没有该类型时忽略
+    void markChanged(int typeId, int row, long tick) {
+        int t = columnOf[typeId];
+        if (t >= 0) changeTicks[t][row] = tick;
+    }
+
+    long changeTick(int typeId, int row) {
+        int t = columnOf[typeId];
+        return t >= 0 ? changeTicks[t][row] : -1;
+    }
+
+    void clear() {
+        while (size > 0) remove(size - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= entities.length) return;
+        int newCapacity = Math.max(capacity, entities.length * 2);
+        entities = Arrays.copyOf(entities, newCapacity);
+        for (int t = 0; t < components.length; t++) {
+            components[t] = Arrays.copyOf(components[t], newCapacity);
+            changeTicks[t] = Arrays.copyOf(changeTicks[t], newCapacity);
+        }
+        addedTicks = Arrays.copyOf(addedTicks, newCapacity);
+        if (hasPosition) {
+            posX = Arrays.copyOf(posX, newCapacity); posY = Arrays.copyOf(posY, newCapacity);
+            prevX = Arrays.copyOf(prevX, newCapacity); prevY = Arrays.copyOf(prevY, newCapacity);
+        }
+        if (hasVelocity) {
+            velX = Arrays.copyOf(velX, newCapacity); velY = Arrays.copyOf(velY, newCapacity);
+            prevVelX = Arrays.copyOf(prevVelX, newCapacity); prevVelY = Arrays.copyOf(prevVelY, newCapacity);
+            accX = Arrays.copyOf(accX, newCapacity); accY = Arrays.copyOf(accY, newCapacity);
+            gravX = Arrays.copyOf(gravX, newCapacity); gravY = Arrays.copyOf(gravY, newCapacity);
+            friction = Arrays.copyOf(friction, newCapacity);
+            physicsEnabled = Arrays.copyOf(physicsEnabled, newCapacity);
+            sleepTime = Arrays.copyOf(sleepTime, newCapacity);
+        }
+        if (hasHealth) health = Arrays.copyOf(health, newCapacity);
+    }
+
+    private boolean hasType(int typeId) {
+        return (signature & (1L << typeId)) != 0;
+    }
+
+    public boolean has(Class<?> type) {
+        return hasType(ComponentTypes.idOf(type));
+    }
+
+    public boolean hasAll(long requiredMask) {
+        return (signature & requiredMask) == requiredMask;
+    }
+
+    public long getSignature() {
+        return signature;
+    }
+
+    public int getTypeCount() {
+        return typeIds.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public GameObject entity(int row) {
+        return entities[row];
+    }
+
+    // 组件引用列，长度可能大于 size()
+    public Component<?>[] componentColumn(Class<?> type) {
+        int t = columnOf[ComponentTypes.idOf(type)];
+        return t >= 0 ? components[t] : null;
+    }
+
+    // 以下列数组在扩容时会被替换，不要跨帧缓存
+    public float[] positionX() { return posX; }
+    public float[] positionY() { return posY; }
+    public float[] previousPositionX() { return prevX; }
+    public float[] previousPositionY() { return prevY; }
+    public float[] velocityX() { return velX; }
+    public float[] velocityY() { return velY; }
+    public float[] previousVelocityX() { return prevVelX; }
+    public float[] previousVelocityY() { return prevVelY; }
+    public float[] accelerationX() { return accX; }
+    public float[] accelerationY() { return accY; }
+    public float[] gravityX() { return gravX; }
+    public float[] gravityY() { return gravY; }
+    public float[] friction() { return friction; }
+    public float[] physicsEnabled() { return physicsEnabled; }
+    public float[] sleepTime() { return sleepTime; }
+
+    // 改写启用列后调用；多个线程同时调用也只是写入同一个值
+    public void markEnabledChanged() { enabledChanged = true; }
+
+    // 读取并清除变化标记，只由物理系统在独占写物理组件时调用
+    boolean takeEnabledChanged() {
+        boolean changed = enabledChanged;
+        enabledChanged = false;
+        return changed;
+    }
+    public int[] health() { return health; }
+
+    // 直接写列的系统（如物理积分）用这两列自行标记变更
+    public long[] changeTicks(Class<?> type) {
+        int t = columnOf[ComponentTypes.idOf(type)];
+        return t >= 0 ? changeTicks[t] : null;
+    }
+    public long[] addedTicks() { return addedTicks; }
+}
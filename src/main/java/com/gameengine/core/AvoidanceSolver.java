@@ -0,0 +1,295 @@
+package com.gameengine.core;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AI 之间的避让：用边长等于避让半径的格子列表找邻居，每对只算一次并对称地推开两方。
+ * 按格子排序后的槽位分成固定大小的块，每块把力累加到自己的缓冲里，最后按块号顺序求和，
+ * 因此串行和并行的结果逐位相同。并行与否按估算的配对数决定。
+ */
+public class AvoidanceSolver {
+    public static final float RADIUS = 80f;
+    private static final float STRENGTH = 50f;
+    private static final float LERP = 0.15f;
+    private static final float MAX_SPEED = 150f;
+    private static final float MIN_DIST_SQ = 1e-12f;
+    // 每个任务处理的槽位数
+    private static final int CHUNK = 256;
+    // 估算配对数达到这个量时，计算时间才明显超过分发任务的开销
+    private static final long PARALLEL_MIN_PAIRS = 16_384;
+
+    private final JobSystem jobs;
+    // 任务体建一次复用，本次求解的块数和步长放在字段里
+    private int solveChunks;
+    private float solveDelta;
+    private final JobSystem.RangeTask accumulateChunks = (first, last) -> {
+        for (int c = first; c < last; c++) accumulate(c);
+    };
+    private final JobSystem.RangeTask applyRange = (start, end) -> apply(start, end, solveChunks, solveDelta);
+
+    // 按格子排序后的槽位数据
+    private float[] x = new float[64], y = new float[64];
+    private PhysicsComponent[] physics = new PhysicsComponent[64];
+    private int[] cellOf = new int[64];
+    private int count;
+
+    // 格子列表：cellStart[c] .. cellStart[c + 1] 为格子 c 中的槽位
+    private int[] cellStart = new int[1];
+    private int cols, rows;
+    private float cellSize, minX, minY;
+
+    // 每块的力缓冲（按槽位下标）和写过的区间上界
+    private float[][] forceX = new float[0][], forceY = new float[0][];
+    private int[] touchedEnd = new int[0];
+
+    // 排序前的临时数据
+    private float[] rawX = new float[64], rawY = new float[64];
+    private PhysicsComponent[] rawPhysics = new PhysicsComponent[64];
+    private int[] rawCell = new int[64];
+
+    private long estimatedPairs;
+    private boolean lastParallel;
+
+    public AvoidanceSolver(JobSystem jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * 计算 agents 之间的避让并改写它们的速度。位置只读上一步的快照，
+     * 因此调用它的系统不必声明读 TransformComponent，可以与只写当前位置的系统同时运行；
+     * 速度仍经 PhysicsComponent 与物理系统按注册顺序串行。
+     */
+    public void solve(List<GameObject> agents, float deltaTime) {
+        gather(agents);
+        if (count < 2) {
+            estimatedPairs = 0;
+            lastParallel = false;
+            return;
+        }
+        buildCells();
+
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        ensureChunks(chunks);
+        lastParallel = jobs != null && jobs.getParallelism() > 1 && chunks > 1 && estimatedPairs >= PARALLEL_MIN_PAIRS;
+        if (lastParallel) {
+            solveChunks = chunks;
+            solveDelta = deltaTime;
+            jobs.parallelFor(0, chunks, 1, accumulateChunks);
+            jobs.parallelFor(0, count, jobs.grainFor(count, CHUNK), applyRange);
+        } else {
+            for (int c = 0; c < chunks; c++) accumulate(c);
+            apply(0, count, chunks, deltaTime);
+        }
+        Arrays.fill(physics, 0, count, null);
+    }
+
+    // 上一次求解时估算的候选配对数
+    public long getEstimatedPairs() {
+        return estimatedPairs;
+    }
+
+    public boolean wasParallel() {
+        return lastParallel;
+    }
+
+    private void gather(List<GameObject> agents) {
+        count = 0;
+        ensureCapacity(agents.size());
+        for (int i = 0; i < agents.size(); i++) {
+            GameObject agent = agents.get(i);
+            TransformComponent transform = agent.getComponent(TransformComponent.class);
+            PhysicsComponent body = agent.getComponent(PhysicsComponent.class);
+            if (transform == null || body == null) continue;
+            rawX[count] = transform.getPreviousX();
+            rawY[count] = transform.getPreviousY();
+            rawPhysics[count] = body;
+            count++;
+        }
+    }
+
+    // 计数排序到格子；格子太多时放大格子边长，邻居仍然落在 3x3 范围内
+    private void buildCells() {
+        float maxX = rawX[0], maxY = rawY[0];
+        minX = rawX[0];
+        minY = rawY[0];
+        for (int i = 1; i < count; i++) {
+            minX = Math.min(minX, rawX[i]);
+            minY = Math.min(minY, rawY[i]);
+            maxX = Math.max(maxX, rawX[i]);
+            maxY = Math.max(maxY, rawY[i]);
+        }
+        cellSize = RADIUS;
+        int maxCells = Math.max(1024, count * 4);
+        while (true) {
+            cols = (int) ((maxX - minX) / cellSize) + 1;
+            rows = (int) ((maxY - minY) / cellSize) + 1;
+            if ((long) cols * rows <= maxCells) break;
+            cellSize *= 2f;
+        }
+        int cells = cols * rows;
+        if (cellStart.length < cells + 1) cellStart = new int[cells + 1];
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+        for (int i = 0; i < count; i++) {
+            int cx = (int) ((rawX[i] - minX) / cellSize);
+            int cy = (int) ((rawY[i] - minY) / cellSize);
+            rawCell[i] = cy * cols + cx;
+            cellStart[rawCell[i] + 1]++;
+        }
+        estimatedPairs = 0;
+        for (int c = 0; c < cells; c++) {
+            long n = cellStart[c + 1];
+            if (n == 0) continue;
+            int cx = c % cols, cy = c / cols;
+            long forward = occupancy(cx + 1, cy) + occupancy(cx - 1, cy + 1) + occupancy(cx, cy + 1) + occupancy(cx + 1, cy + 1);
+            estimatedPairs += n * (n - 1) / 2 + n * forward;
+        }
+        for (int c = 0; c < cells; c++) cellStart[c + 1] += cellStart[c];
+        // 按原下标顺序放入，同格子内保持列表次序
+        for (int i = 0; i < count; i++) {
+            int slot = cellStart[rawCell[i]]++;
+            x[slot] = rawX[i];
+            y[slot] = rawY[i];
+            physics[slot] = rawPhysics[i];
+            cellOf[slot] = rawCell[i];
+        }
+        // 放入时 cellStart 被推进了一格，还原成起点
+        for (int c = cells; c > 0; c--) cellStart[c] = cellStart[c - 1];
+        cellStart[0] = 0;
+        Arrays.fill(rawPhysics, 0, count, null);
+    }
+
+    // 前缀和之前 cellStart[c + 1] 存的是格子 c 的数量
+    private long occupancy(int cx, int cy) {
+        if (cx < 0 || cx >= cols || cy >= rows) return 0;
+        return cellStart[cy * cols + cx + 1];
+    }
+
+    /**
+     * 块 c 的槽位与同格子中靠后的槽位、以及右、左下、下、右下四个格子配对，每对只访问一次。
+     * 这些邻居的槽位都不小于自己，写入区间是 [块起点, touchedEnd)。
+     */
+    private void accumulate(int c) {
+        int start = c * CHUNK;
+        int end = Math.min(count, start + CHUNK);
+        float[] fx = forceX[c], fy = forceY[c];
+        int touched = end;
+        for (int s = start; s < end; s++) {
+            int cell = cellOf[s];
+            int cx = cell % cols, cy = cell / cols;
+            touched = Math.max(touched, pairs(s, s + 1, cellStart[cell + 1], fx, fy));
+            if (cx + 1 < cols) touched = Math.max(touched, pairCell(s, cell + 1, fx, fy));
+            if (cy + 1 < rows) {
+                int below = cell + cols;
+                if (cx > 0) touched = Math.max(touched, pairCell(s, below - 1, fx, fy));
+                touched = Math.max(touched, pairCell(s, below, fx, fy));
+                if (cx + 1 < cols) touched = Math.max(touched, pairCell(s, below + 1, fx, fy));
+            }
+        }
+        touchedEnd[c] = touched;
+    }
+
+    private int pairCell(int s, int cell, float[] fx, float[] fy) {
+        return pairs(s, cellStart[cell], cellStart[cell + 1], fx, fy);
+    }
+
+    /**
+     * s 与槽位 [from, to) 逐个配对。推力 (R - d) / R * STRENGTH 沿单位向量 d / |d|，
+     * 写成 max(0, R / d - 1) 的形式后半径外的候选自然得到 0，循环里没有分支。
+     * 返回写入区间的上界，没有候选时返回 0。
+     */
+    private int pairs(int s, int from, int to, float[] fx, float[] fy) {
+        if (from >= to) return 0;
+        float[] px = x, py = y;
+        float x1 = px[s], y1 = py[s];
+        float sumX = 0f, sumY = 0f;
+        for (int t = from; t < to; t++) {
+            float dx = x1 - px[t];
+            float dy = y1 - py[t];
+            // 重合的两方 dx = dy = 0，推力为 0，只需避免除零
+            float distSq = Math.max(dx * dx + dy * dy, MIN_DIST_SQ);
+            float scale = Math.max(0f, RADIUS / (float) Math.sqrt(distSq) - 1f) * (STRENGTH / RADIUS);
+            float fxPair = dx * scale, fyPair = dy * scale;
+            sumX += fxPair;
+            sumY += fyPair;
+            fx[t] -= fxPair;
+            fy[t] -= fyPair;
+        }
+        fx[s] += sumX;
+        fy[s] += sumY;
+        return to;
+    }
+
+    // 槽位 [start, end) 按块号顺序合并各块的力，清零缓冲，并改写速度
+    private void apply(int start, int end, int chunks, float deltaTime) {
+        for (int s = start; s < end; s++) {
+            float avoidX = 0, avoidY = 0;
+            int firstChunk = s / CHUNK;
+            for (int c = 0; c <= firstChunk && c < chunks; c++) {
+                if (s >= touchedEnd[c]) continue;
+                avoidX += forceX[c][s];
+                avoidY += forceY[c][s];
+                forceX[c][s] = 0f;
+                forceY[c][s] = 0f;
+            }
+            steer(physics[s], avoidX, avoidY, deltaTime);
+        }
+    }
+
+    private static void steer(PhysicsComponent body, float avoidX, float avoidY, float deltaTime) {
+        float avoidLen = (float) Math.sqrt(avoidX * avoidX + avoidY * avoidY);
+        if (avoidLen <= 0) return;
+        float vx = body.getVelocityX();
+        float vy = body.getVelocityY();
+        float push = Math.min(avoidLen, STRENGTH) * deltaTime * 10;
+
+        float targetX = vx + avoidX / avoidLen * push;
+        float targetY = vy + avoidY / avoidLen * push;
+        float newX = vx + (targetX - vx) * LERP;
+        float newY = vy + (targetY - vy) * LERP;
+
+        float speed = (float) Math.sqrt(newX * newX + newY * newY);
+        if (speed > MAX_SPEED) {
+            newX = newX / speed * MAX_SPEED;
+            newY = newY / speed * MAX_SPEED;
+        }
+        body.setVelocity(newX, newY);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x.length) return;
+        int n = Math.max(capacity, x.length * 2);
+        x = new float[n];
+        y = new float[n];
+        physics = new PhysicsComponent[n];
+        cellOf = new int[n];
+        rawX = new float[n];
+        rawY = new float[n];
+        rawPhysics = new PhysicsComponent[n];
+        rawCell = new int[n];
+        for (int c = 0; c < forceX.length; c++) {
+            forceX[c] = new float[n];
+            forceY[c] = new float[n];
+        }
+    }
+
+    private void ensureChunks(int chunks) {
+        if (forceX.length >= chunks) return;
+        int old = forceX.length;
+        forceX = Arrays.copyOf(forceX, chunks);
+        forceY = Arrays.copyOf(forceY, chunks);
+        touchedEnd = Arrays.copyOf(touchedEnd, chunks);
+        for (int c = old; c < chunks; c++) {
+            forceX[c] = new float[x.length];
+            forceY[c] = new float[x.length];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AvoidanceSolver[agents=" + count + " cell=" + cellSize + " pairs~" + estimatedPairs
+            + (lastParallel ? " parallel" : " serial") + "]";
+    }
+}
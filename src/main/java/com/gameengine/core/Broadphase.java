@@ -0,0 +1,250 @@
+package com.gameengine.core;
+
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.scene.Scene;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 宽相碰撞检测：每步把带碰撞体的活动实体装进均匀空间哈希，只在相邻格子里找候选，
+ * 按层位/掩码过滤后做圆形窄相测试，结果写入 {@link ContactBuffer} 供游戏逻辑消费。
+ * 实体按块并行生成接触对，各块的输出再按块号顺序合并，结果与线程数无关。
+ * <p>
+ * 这里不复用场景的 {@link SpatialIndex}：宽相每步要找出全部接触对，
+ * 按格子计数排序的扁平数组能在 O(n) 内重建，并按块号给出确定的接触顺序；
+ * 场景索引为增量更新和少量点查询设计，逐个实体查询的回调与去重开销更大
+ * （5000 个物体时，仅索引查询就比本类重建加配对多用约三成时间），顺序也随索引实现变化。
+ */
+public class Broadphase implements GameSystem {
+    // 每个任务处理的实体数
+    private static final int CHUNK = 256;
+    // 格子边长下限；实际取 max(最小值, 最大直径)，保证接触对一定落在 3x3 邻域内
+    private static final float MIN_CELL = 32f;
+    private static final Class<?>[] READS = { TransformComponent.class, ColliderComponent.class, GameObject.class };
+    private static final Class<?>[] WRITES = { Broadphase.class };
+
+    private final JobSystem jobs;
+    private final EntityQuery colliders;
+    private final ContactBuffer contacts = new ContactBuffer();
+    // 任务体只捕获 this，建一次复用
+    private final JobSystem.RangeTask pairChunks = (first, last) -> {
+        for (int c = first; c < last; c++) generatePairs(c);
+    };
+
+    // 本步参与检测的实体，按原型、行顺序收集
+    private GameObject[] bodies = new GameObject[64];
+    private float[] x = new float[64], y = new float[64], radius = new float[64];
+    private int[] layer = new int[64], mask = new int[64];
+    private int[] cellX = new int[64], cellY = new int[64], bucketOf = new int[64];
+    private int count;
+    private float cellSize = MIN_CELL;
+
+    // 空间哈希：计数排序后 sorted[bucketStart[b] .. bucketStart[b+1]) 为桶 b 中的实体
+    private int[] bucketStart = new int[1];
+    private int[] bucketFill = new int[1];
+    private int[] sorted = new int[64];
+    private int bucketMask;
+
+    // 每块的接触对（实体下标成对存放）与候选计数
+    private int[][] chunkPairs = new int[0][];
+    private int[] chunkPairCount = new int[0];
+    private long[] chunkCandidates = new long[0];
+    // 每块扫描 3x3 邻域时已访问的桶，块 c 用 [c * 9, c * 9 + 9)
+    private int[] chunkVisited = new int[0];
+    private long candidates;
+
+    public Broadphase(Scene scene, JobSystem jobs) {
+        this.jobs = jobs;
+        this.colliders = scene.getStorage().query(TransformComponent.class, ColliderComponent.class);
+    }
+
+    @Override
+    public String getName() {
+        return "Broadphase";
+    }
+
+    @Override
+    public Class<?>[] reads() {
+        return READS;
+    }
+
+    @Override
+    public Class<?>[] writes() {
+        return WRITES;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        contacts.clear();
+        gather();
+        if (count < 2) {
+            candidates = 0;
+            return;
+        }
+        buildHash();
+
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        ensureChunks(chunks);
+        if (jobs == null || chunks == 1) {
+            for (int c = 0; c < chunks; c++) generatePairs(c);
+        } else {
+            jobs.parallelFor(0, chunks, 1, pairChunks);
+        }
+
+        // 按块号顺序合并
+        candidates = 0;
+        for (int c = 0; c < chunks; c++) {
+            candidates += chunkCandidates[c];
+            int[] pairs = chunkPairs[c];
+            for (int p = 0; p < chunkPairCount[c]; p += 2) addContact(pairs[p], pairs[p + 1]);
+        }
+    }
+
+    public ContactBuffer getContacts() {
+        return contacts;
+    }
+
+    public int getBodyCount() {
+        return count;
+    }
+
+    // 上一步通过层位过滤、做了窄相测试的候选数
+    public long getCandidateCount() {
+        return candidates;
+    }
+
+    private void gather() {
+        count = 0;
+        float maxRadius = 0f;
+        List<Archetype> archetypes = colliders.archetypes();
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            float[] posX = archetype.positionX(), posY = archetype.positionY();
+            Component<?>[] column = archetype.componentColumn(ColliderComponent.class);
+            for (int row = 0; row < archetype.size(); row++) {
+                GameObject obj = archetype.entity(row);
+                ColliderComponent collider = (ColliderComponent) column[row];
+                if (!obj.isActive() || !collider.isEnabled()) continue;
+                ensureBodies(count + 1);
+                bodies[count] = obj;
+                x[count] = posX[row];
+                y[count] = posY[row];
+                radius[count] = collider.getRadius();
+                layer[count] = collider.getLayer();
+                mask[count] = collider.getMask();
+                maxRadius = Math.max(maxRadius, radius[count]);
+                count++;
+            }
+        }
+        Arrays.fill(bodies, count, bodies.length, null);
+        cellSize = Math.max(MIN_CELL, maxRadius * 2f);
+    }
+
+    private void buildHash() {
+        int buckets = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+        if (bucketStart.length < buckets + 1) {
+            bucketStart = new int[buckets + 1];
+            bucketFill = new int[buckets];
+        }
+        bucketMask = buckets - 1;
+        Arrays.fill(bucketStart, 0, buckets + 1, 0);
+        float inv = 1f / cellSize;
+        for (int i = 0; i < count; i++) {
+            cellX[i] = (int) Math.floor(x[i] * inv);
+            cellY[i] = (int) Math.floor(y[i] * inv);
+            bucketOf[i] = bucket(cellX[i], cellY[i]);
+            bucketStart[bucketOf[i] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) bucketStart[b + 1] += bucketStart[b];
+        System.arraycopy(bucketStart, 0, bucketFill, 0, buckets);
+        // 按下标顺序放入，桶内保持升序
+        for (int i = 0; i < count; i++) sorted[bucketFill[bucketOf[i]]++] = i;
+    }
+
+    private int bucket(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+        return (h ^ (h >>> 15)) & bucketMask;
+    }
+
+    // 块 c 中每个实体只与下标更大的实体配对，每对只生成一次
+    private void generatePairs(int c) {
+        int start = c * CHUNK;
+        int end = Math.min(count, start + CHUNK);
+        int[] pairs = chunkPairs[c];
+        int pairCount = 0;
+        long tested = 0;
+        int[] visited = chunkVisited;
+        int visitedBase = c * 9;
+        for (int i = start; i < end; i++) {
+            int visitedCount = visitedBase;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int b = bucket(cellX[i] + dx, cellY[i] + dy);
+                    // 不同格子可能哈希到同一个桶，同一桶只扫一次
+                    boolean seen = false;
+                    for (int v = visitedBase; v < visitedCount; v++) {
+                        if (visited[v] == b) { seen = true; break; }
+                    }
+                    if (seen) continue;
+                    visited[visitedCount++] = b;
+
+                    for (int s = bucketStart[b]; s < bucketStart[b + 1]; s++) {
+                        int j = sorted[s];
+                        if (j <= i) continue;
+                        if ((layer[i] & mask[j]) == 0 && (layer[j] & mask[i]) == 0) continue;
+                        tested++;
+                        float ddx = x[i] - x[j], ddy = y[i] - y[j];
+                        float reach = radius[i] + radius[j];
+                        if (ddx * ddx + ddy * ddy >= reach * reach) continue;
+                        if (pairCount + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                        pairs[pairCount++] = i;
+                        pairs[pairCount++] = j;
+                    }
+                }
+            }
+        }
+        chunkPairs[c] = pairs;
+        chunkPairCount[c] = pairCount;
+        chunkCandidates[c] = tested;
+    }
+
+    // 层位小的一方放前面，同层按下标
+    private void addContact(int i, int j) {
+        if (layer[j] < layer[i]) {
+            int t = i; i = j; j = t;
+        }
+        contacts.add(bodies[i], layer[i], bodies[j], layer[j]);
+    }
+
+    private void ensureBodies(int capacity) {
+        if (capacity <= bodies.length) return;
+        int n = Math.max(capacity, bodies.length * 2);
+        bodies = Arrays.copyOf(bodies, n);
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        radius = Arrays.copyOf(radius, n);
+        layer = Arrays.copyOf(layer, n);
+        mask = Arrays.copyOf(mask, n);
+        cellX = Arrays.copyOf(cellX, n);
+        cellY = Arrays.copyOf(cellY, n);
+        bucketOf = Arrays.copyOf(bucketOf, n);
+        sorted = Arrays.copyOf(sorted, n);
+    }
+
+    private void ensureChunks(int chunks) {
+        if (chunkPairs.length >= chunks) return;
+        int old = chunkPairs.length;
+        chunkPairs = Arrays.copyOf(chunkPairs, chunks);
+        chunkPairCount = Arrays.copyOf(chunkPairCount, chunks);
+        chunkCandidates = Arrays.copyOf(chunkCandidates, chunks);
+        chunkVisited = new int[chunks * 9];
+        for (int c = old; c < chunks; c++) chunkPairs[c] = new int[64];
+    }
+
+    @Override
+    public String toString() {
+        return "Broadphase[bodies=" + count + " cell=" + cellSize + " candidates=" + candidates
+            + " contacts=" + contacts.size() + "]";
+    }
+}
@@ -0,0 +1,24 @@
+package com.gameengine.core;
+
+/**
+ * 碰撞层位。两个碰撞体只有在一方的层位落在另一方的掩码里时才会生成接触对。
+ */
+public final class CollisionLayers {
+    public static final int PLAYER = 1;
+    public static final int ENEMY = 1 << 1;
+    public static final int PLAYER_BULLET = 1 << 2;
+    public static final int ENEMY_BULLET = 1 << 3;
+
+    private CollisionLayers() {}
+
+    // 默认碰撞矩阵：玩家与敌人互碰，玩家子弹打敌人，敌人子弹打玩家
+    public static int defaultMask(int layer) {
+        switch (layer) {
+            case PLAYER: return ENEMY | ENEMY_BULLET;
+            case ENEMY: return PLAYER | PLAYER_BULLET;
+            case PLAYER_BULLET: return ENEMY;
+            case ENEMY_BULLET: return PLAYER;
+            default: return 0;
+        }
+    }
+}
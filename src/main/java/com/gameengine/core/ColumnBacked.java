@@ -0,0 +1,16 @@
+package com.gameengine.core;
+
+/**
+ * 数据可以存放在原型列（Archetype）中的组件。
+ * 绑定期间组件只是列数据的门面，解绑时把列中的值拷回组件自身字段。
+ */
+public interface ColumnBacked {
+    // 绑定到原型的某一行，并把当前值写入列中
+    void bindColumns(Archetype archetype, int row);
+
+    // swap-remove 之后行号发生变化
+    void rebindRow(int row);
+
+    // 解绑，把列中的值拷回组件
+    void unbindColumns();
+}
@@ -0,0 +1,82 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 结构性修改的命令缓冲，每个线程一份（见 {@link CommandQueue}）。
+ * 记录时不加锁；同步点上所有缓冲按 (顺序键, 序号) 合并后在主线程执行。
+ * 命令对象在缓冲里循环复用，执行完清空后下一帧接着填，稳定后记录不再分配。
+ */
+public final class CommandBuffer {
+    enum Op { SPAWN, DESTROY, ADD_COMPONENT, REMOVE_COMPONENT, RUN }
+
+    static final class Command {
+        long key;
+        int seq;
+        Op op;
+        GameObject target;
+        Object arg;
+    }
+
+    // [0, count) 为本帧记录的命令，之后的是上一轮留下、等待复用的空命令
+    private Command[] commands = new Command[16];
+    private int count;
+    // 当前工作项的顺序键，由 CommandQueue.enter 设置
+    boolean recording;
+    long key;
+    int seq;
+
+    CommandBuffer() {}
+
+    // 加入场景
+    public void spawn(GameObject obj) {
+        record(Op.SPAWN, obj, null);
+    }
+
+    // 失活并移除，池化对象随后归还
+    public void destroy(GameObject obj) {
+        record(Op.DESTROY, obj, null);
+    }
+
+    public void addComponent(GameObject obj, Component<?> component) {
+        record(Op.ADD_COMPONENT, obj, component);
+    }
+
+    public <T extends Component<T>> void removeComponent(GameObject obj, Class<T> type) {
+        record(Op.REMOVE_COMPONENT, obj, type);
+    }
+
+    // 其他必须在主线程执行的操作，例如从对象池取对象
+    public void run(Runnable op) {
+        record(Op.RUN, null, op);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    Command get(int i) {
+        return commands[i];
+    }
+
+    // 命令执行完后调用，去掉对象引用以免拖住已销毁的实体
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            commands[i].target = null;
+            commands[i].arg = null;
+        }
+        count = 0;
+    }
+
+    private void record(Op op, GameObject target, Object arg) {
+        if (count == commands.length) commands = Arrays.copyOf(commands, count * 2);
+        Command command = commands[count];
+        if (command == null) command = commands[count] = new Command();
+        command.key = key;
+        command.seq = seq++;
+        command.op = op;
+        command.target = target;
+        command.arg = arg;
+        count++;
+    }
+}
@@ -0,0 +1,107 @@
+package com.gameengine.core;
+
+import com.gameengine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 场景的延迟命令队列。工作项（对象更新块、系统）开始前用 enter 设定顺序键，
+ * 期间的结构性修改记录到本线程的 {@link CommandBuffer}；flush 按顺序键合并执行，
+ * 所以结果与线程调度无关。顺序键在一帧内必须唯一对应一个工作项。
+ */
+public final class CommandQueue {
+    private static final Comparator<CommandBuffer.Command> ORDER =
+        Comparator.<CommandBuffer.Command>comparingLong(c -> c.key).thenComparingInt(c -> c.seq);
+
+    private final List<CommandBuffer> buffers = new ArrayList<>();
+    private final ThreadLocal<CommandBuffer> local = ThreadLocal.withInitial(this::register);
+    private final List<CommandBuffer.Command> merged = new ArrayList<>();
+
+    private synchronized CommandBuffer register() {
+        CommandBuffer buffer = new CommandBuffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    public void enter(long key) {
+        CommandBuffer buffer = local.get();
+        buffer.recording = true;
+        buffer.key = key;
+        buffer.seq = 0;
+    }
+
+    public void exit() {
+        local.get().recording = false;
+    }
+
+    // 当前线程处于工作项中时返回它的缓冲，否则返回 null（调用方应直接执行）
+    public CommandBuffer recording() {
+        CommandBuffer buffer = local.get();
+        return buffer.recording ? buffer : null;
+    }
+
+    /**
+     * 同步点：合并所有线程的命令并在调用线程上执行。必须在没有工作项运行时调用。
+     */
+    public void flush(Scene scene) {
+        synchronized (this) {
+            for (int b = 0; b < buffers.size(); b++) {
+                CommandBuffer buffer = buffers.get(b);
+                for (int i = 0; i < buffer.size(); i++) merged.add(buffer.get(i));
+            }
+        }
+        if (merged.isEmpty()) return;
+        merged.sort(ORDER);
+        try {
+            for (int i = 0; i < merged.size(); i++) {
+                apply(scene, merged.get(i));
+            }
+        } finally {
+            // 命令对象归还各自的缓冲复用
+            merged.clear();
+            clear();
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void apply(Scene scene, CommandBuffer.Command command) {
+        switch (command.op) {
+            case SPAWN:
+                scene.addGameObject(command.target);
+                break;
+            case DESTROY:
+                scene.destroyGameObject(command.target);
+                break;
+            case ADD_COMPONENT:
+                addComponent(command.target, (Component<?>) command.arg);
+                break;
+            case REMOVE_COMPONENT:
+                removeComponent(command.target, (Class) command.arg);
+                break;
+            case RUN:
+                ((Runnable) command.arg).run();
+                break;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void addComponent(GameObject target, Component<?> component) {
+        target.addComponent((Component) component);
+    }
+
+    private static <T extends Component<T>> void removeComponent(GameObject target, Class<T> type) {
+        target.removeComponent(type);
+    }
+
+    public synchronized int pendingCount() {
+        int count = 0;
+        for (CommandBuffer buffer : buffers) count += buffer.size();
+        return count;
+    }
+
+    public synchronized void clear() {
+        for (int b = 0; b < buffers.size(); b++) buffers.get(b).clear();
+    }
+}
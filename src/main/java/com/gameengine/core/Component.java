@@ -4,10 +4,12 @@ public abstract class Component<T extends Component<T>> {
     protected GameObject owner;
     protected boolean enabled;
     protected String name;
+    private final int typeId;
     
     public Component() {
         this.enabled = true;
         this.name = this.getClass().getSimpleName();
+        this.typeId = ComponentTypes.idOf(this.getClass());
     }
     
     public abstract void initialize();
@@ -16,16 +18,48 @@ public abstract class Component<T extends Component<T>> {
     }
     
     public abstract void render();
+
+    /**
+     * 为 true 表示 update 只读写所属对象自己的状态（对其他对象只读），
+     * 场景并行更新时可以放到工作线程上执行。增删对象需经 Scene.defer 延迟。
+     */
+    public boolean isThreadConfined() {
+        return false;
+    }
     
+    /**
+     * 标记本组件在当前变更刻被修改，供 {@link EntityQuery#forEachChanged} 查询。
+     * 修改状态的 setter 应调用它；对象不在场景中时什么也不做。
+     */
+    protected void markChanged() {
+        GameObject o = owner;
+        if (o != null && o.storage != null) o.storage.markChanged(o, typeId);
+    }
+
+    // 最近一次修改时的变更刻，对象不在场景中时返回 -1
+    public long getChangeTick() {
+        GameObject o = owner;
+        return o != null && o.archetype != null ? o.archetype.changeTick(typeId, o.archetypeRow) : -1;
+    }
+
     public void destroy() {
         this.enabled = false;
     }
+
+    // 对象池回收时调用，子类重写以恢复初始状态
+    public void reset() {
+        this.enabled = true;
+    }
     
     @SuppressWarnings("unchecked")
     public Class<T> getComponentType() {
         return (Class<T>) this.getClass();
     }
     
+    public int getTypeId() {
+        return typeId;
+    }
+    
     public GameObject getOwner() {
         return owner;
     }
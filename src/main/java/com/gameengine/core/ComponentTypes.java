@@ -0,0 +1,53 @@
+package com.gameengine.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 组件类型注册表：为每个 Component 子类分配一个小整数 ID，
+ * GameObject 以 ID 为下标存放组件，并用位掩码记录组件签名。
+ */
+public final class ComponentTypes {
+    public static final int MAX_TYPES = 64;
+
+    private static final Map<Class<?>, Integer> registry = new HashMap<>();
+    private static final ClassValue<Integer> ids = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            synchronized (registry) {
+                Integer id = registry.get(type);
+                if (id == null) {
+                    if (registry.size() >= MAX_TYPES) {
+                        throw new IllegalStateException("组件类型超过上限 " + MAX_TYPES + ": " + type.getName());
+                    }
+                    id = registry.size();
+                    registry.put(type, id);
+                }
+                return id;
+            }
+        }
+    };
+
+    private ComponentTypes() {}
+
+    // 按具体类分配 ID，子类视为不同的组件类型
+    public static int idOf(Class<?> type) {
+        return ids.get(type);
+    }
+
+    public static long bitOf(Class<?> type) {
+        return 1L << idOf(type);
+    }
+
+    public static long maskOf(Class<?>... types) {
+        long mask = 0L;
+        for (Class<?> type : types) mask |= bitOf(type);
+        return mask;
+    }
+
+    public static int count() {
+        synchronized (registry) {
+            return registry.size();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 宽相输出的接触对。每对中层位较小的一方在前（如 PLAYER 在 ENEMY_BULLET 前），
+ * 顺序与线程调度无关。内容在下一次宽相运行时被覆盖。
+ */
+public final class ContactBuffer {
+    private GameObject[] first = new GameObject[64];
+    private GameObject[] second = new GameObject[64];
+    private int[] firstLayer = new int[64];
+    private int[] secondLayer = new int[64];
+    private int size;
+
+    void clear() {
+        Arrays.fill(first, 0, size, null);
+        Arrays.fill(second, 0, size, null);
+        size = 0;
+    }
+
+    void add(GameObject a, int layerA, GameObject b, int layerB) {
+        if (size == first.length) {
+            int capacity = size * 2;
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            firstLayer = Arrays.copyOf(firstLayer, capacity);
+            secondLayer = Arrays.copyOf(secondLayer, capacity);
+        }
+        first[size] = a;
+        firstLayer[size] = layerA;
+        second[size] = b;
+        secondLayer[size++] = layerB;
+    }
+
+    public int size() { return size; }
+    public GameObject first(int i) { return first[i]; }
+    public GameObject second(int i) { return second[i]; }
+    public int firstLayer(int i) { return firstLayer[i]; }
+    public int secondLayer(int i) { return secondLayer[i]; }
+}
@@ -0,0 +1,327 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 增量维护的动态包围盒树（与 Box2D 的 b2DynamicTree 同一思路）。
+ * 叶子保存向外扩出 margin 的胖包围盒，移动后只要紧包围盒还在胖盒内就不改树；
+ * 插入时按周长代价选择兄弟节点，沿路径回溯时做 AVL 式旋转保持平衡。
+ * 不依赖世界大小，适合聚集成团、大部分时间小幅移动的物体。
+ */
+public class DynamicAabbTree extends AbstractSpatialIndex {
+    private static final int NULL = -1;
+
+    private final float margin;
+    private int root = NULL;
+
+    // 节点池：叶子的 nodeSlot 为对应槽位，内部节点为 -1；空闲节点经 parent 串成链表
+    private float[] nMinX = new float[64], nMinY = new float[64], nMaxX = new float[64], nMaxY = new float[64];
+    private int[] parent = new int[64], child1 = new int[64], child2 = new int[64], height = new int[64];
+    private int[] nodeSlot = new int[64];
+    private int nodeTop;
+    private int freeNode = NULL;
+
+    private int[] leafOf = new int[64];
+
+    public DynamicAabbTree(float margin) {
+        if (margin < 0) throw new IllegalArgumentException("margin must not be negative");
+        this.margin = margin;
+    }
+
+    @Override
+    public String getName() {
+        return "DynamicAabbTree(" + margin + ")";
+    }
+
+    // 树高，空树为 -1
+    public int getHeight() {
+        return root == NULL ? -1 : height[root];
+    }
+
+    @Override
+    protected void onInsert(int slot) {
+        int leaf = allocateNode();
+        nodeSlot[leaf] = slot;
+        height[leaf] = 0;
+        fatten(leaf, slot);
+        leafOf[slot] = leaf;
+        insertLeaf(leaf);
+    }
+
+    @Override
+    protected void onMove(int slot) {
+        int leaf = leafOf[slot];
+        if (nMinX[leaf] <= minX[slot] && nMinY[leaf] <= minY[slot]
+                && nMaxX[leaf] >= maxX[slot] && nMaxY[leaf] >= maxY[slot]) {
+            return;
+        }
+        removeLeaf(leaf);
+        fatten(leaf, slot);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    protected void onRemove(int slot) {
+        int leaf = leafOf[slot];
+        removeLeaf(leaf);
+        releaseNode(leaf);
+    }
+
+    @Override
+    protected void onClear() {
+        root = NULL;
+        nodeTop = 0;
+        freeNode = NULL;
+    }
+
+    @Override
+    protected void collect(Query q, float minX, float minY, float maxX, float maxY) {
+        if (root == NULL) return;
+        int[] stack = q.stack(1);
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nMinX[node] > maxX || nMinY[node] > maxY || nMaxX[node] < minX || nMaxY[node] < minY) continue;
+            if (child1[node] == NULL) {
+                candidate(q, nodeSlot[node]);
+            } else {
+                stack = q.stack(top + 2);
+                stack[top++] = child1[node];
+                stack[top++] = child2[node];
+            }
+        }
+    }
+
+    @Override
+    protected void traceRay(Query q) {
+        if (root == NULL) return;
+        int[] stack = q.stack(1);
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (rayEnter(q, nMinX[node], nMinY[node], nMaxX[node], nMaxY[node]) < 0) continue;
+            if (child1[node] == NULL) {
+                rayCandidate(q, nodeSlot[node]);
+            } else {
+                stack = q.stack(top + 2);
+                stack[top++] = child1[node];
+                stack[top++] = child2[node];
+            }
+        }
+    }
+
+    @Override
+    protected void growSlots(int capacity) {
+        leafOf = Arrays.copyOf(leafOf, capacity);
+    }
+
+    private void fatten(int leaf, int slot) {
+        nMinX[leaf] = minX[slot] - margin;
+        nMinY[leaf] = minY[slot] - margin;
+        nMaxX[leaf] = maxX[slot] + margin;
+        nMaxY[leaf] = maxY[slot] + margin;
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        // 沿代价更低的一侧下降，直到把叶子放在当前节点旁边更便宜
+        float lx0 = nMinX[leaf], ly0 = nMinY[leaf], lx1 = nMaxX[leaf], ly1 = nMaxY[leaf];
+        int index = root;
+        while (child1[index] != NULL) {
+            int c1 = child1[index], c2 = child2[index];
+            float area = perimeter(nMinX[index], nMinY[index], nMaxX[index], nMaxY[index]);
+            float combined = perimeter(Math.min(lx0, nMinX[index]), Math.min(ly0, nMinY[index]),
+                Math.max(lx1, nMaxX[index]), Math.max(ly1, nMaxY[index]));
+            // 在这里新建父节点的代价，以及继续下降时祖先增加的周长
+            float cost = 2f * combined;
+            float inheritance = 2f * (combined - area);
+            float cost1 = descendCost(c1, lx0, ly0, lx1, ly1) + inheritance;
+            float cost2 = descendCost(c2, lx0, ly0, lx1, ly1) + inheritance;
+            if (cost < cost1 && cost < cost2) break;
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        nodeSlot[newParent] = -1;
+        parent[newParent] = oldParent;
+        height[newParent] = height[sibling] + 1;
+        setUnion(newParent, leaf, sibling);
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        if (oldParent == NULL) {
+            root = newParent;
+        } else if (child1[oldParent] == sibling) {
+            child1[oldParent] = newParent;
+        } else {
+            child2[oldParent] = newParent;
+        }
+        refit(parent[leaf]);
+    }
+
+    private float descendCost(int child, float lx0, float ly0, float lx1, float ly1) {
+        float combined = perimeter(Math.min(lx0, nMinX[child]), Math.min(ly0, nMinY[child]),
+            Math.max(lx1, nMaxX[child]), Math.max(ly1, nMaxY[child]));
+        if (child1[child] == NULL) return combined;
+        return combined - perimeter(nMinX[child], nMinY[child], nMaxX[child], nMaxY[child]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+        int p = parent[leaf];
+        int grandParent = parent[p];
+        int sibling = child1[p] == leaf ? child2[p] : child1[p];
+        if (grandParent == NULL) {
+            root = sibling;
+            parent[sibling] = NULL;
+            releaseNode(p);
+            return;
+        }
+        if (child1[grandParent] == p) child1[grandParent] = sibling;
+        else child2[grandParent] = sibling;
+        parent[sibling] = grandParent;
+        releaseNode(p);
+        refit(grandParent);
+    }
+
+    // 从 index 回溯到根：逐个平衡并重算高度与包围盒
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index], c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * 左右子树高度差超过 1 时把较高的子节点旋转上来，返回该位置新的子树根。
+     */
+    private int balance(int a) {
+        if (child1[a] == NULL || height[a] < 2) return a;
+        int b = child1[a], c = child2[a];
+        int diff = height[c] - height[b];
+
+        if (diff > 1) {
+            int f = child1[c], g = child2[c];
+            child1[c] = a;
+            parent[c] = parent[a];
+            parent[a] = c;
+            replaceChild(parent[c], a, c);
+            if (height[f] > height[g]) {
+                child2[c] = f;
+                child2[a] = g;
+                parent[g] = a;
+                setUnion(a, b, g);
+                setUnion(c, a, f);
+                height[a] = 1 + Math.max(height[b], height[g]);
+                height[c] = 1 + Math.max(height[a], height[f]);
+            } else {
+                child2[c] = g;
+                child2[a] = f;
+                parent[f] = a;
+                setUnion(a, b, f);
+                setUnion(c, a, g);
+                height[a] = 1 + Math.max(height[b], height[f]);
+                height[c] = 1 + Math.max(height[a], height[g]);
+            }
+            return c;
+        }
+
+        if (diff < -1) {
+            int d = child1[b], e = child2[b];
+            child1[b] = a;
+            parent[b] = parent[a];
+            parent[a] = b;
+            replaceChild(parent[b], a, b);
+            if (height[d] > height[e]) {
+                child2[b] = d;
+                child1[a] = e;
+                parent[e] = a;
+                setUnion(a, c, e);
+                setUnion(b, a, d);
+                height[a] = 1 + Math.max(height[c], height[e]);
+                height[b] = 1 + Math.max(height[a], height[d]);
+            } else {
+                child2[b] = e;
+                child1[a] = d;
+                parent[d] = a;
+                setUnion(a, c, d);
+                setUnion(b, a, e);
+                height[a] = 1 + Math.max(height[c], height[d]);
+                height[b] = 1 + Math.max(height[a], height[e]);
+            }
+            return b;
+        }
+        return a;
+    }
+
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NULL) {
+            root = newChild;
+        } else if (child1[p] == oldChild) {
+            child1[p] = newChild;
+        } else {
+            child2[p] = newChild;
+        }
+    }
+
+    private void setUnion(int target, int a, int b) {
+        nMinX[target] = Math.min(nMinX[a], nMinX[b]);
+        nMinY[target] = Math.min(nMinY[a], nMinY[b]);
+        nMaxX[target] = Math.max(nMaxX[a], nMaxX[b]);
+        nMaxY[target] = Math.max(nMaxY[a], nMaxY[b]);
+    }
+
+    private static float perimeter(float x0, float y0, float x1, float y1) {
+        return 2f * ((x1 - x0) + (y1 - y0));
+    }
+
+    private int allocateNode() {
+        int node;
+        if (freeNode != NULL) {
+            node = freeNode;
+            freeNode = parent[node];
+        } else {
+            if (nodeTop == parent.length) growNodes(nodeTop * 2);
+            node = nodeTop++;
+        }
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        height[node] = 0;
+        return node;
+    }
+
+    private void releaseNode(int node) {
+        parent[node] = freeNode;
+        height[node] = -1;
+        freeNode = node;
+    }
+
+    private void growNodes(int capacity) {
+        nMinX = Arrays.copyOf(nMinX, capacity);
+        nMinY = Arrays.copyOf(nMinY, capacity);
+        nMaxX = Arrays.copyOf(nMaxX, capacity);
+        nMaxY = Arrays.copyOf(nMaxY, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        child1 = Arrays.copyOf(child1, capacity);
+        child2 = Arrays.copyOf(child2, capacity);
+        height = Arrays.copyOf(height, capacity);
+        nodeSlot = Arrays.copyOf(nodeSlot, capacity);
+    }
+}
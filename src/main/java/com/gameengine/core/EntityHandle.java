@@ -0,0 +1,27 @@
+package com.gameengine.core;
+
+/**
+ * 代际实体句柄：低 32 位为槽位下标，高 32 位为代数。
+ * 槽位回收后代数加一，旧句柄随即失效；0 表示空句柄。
+ */
+public final class EntityHandle {
+    public static final long NONE = 0L;
+
+    private EntityHandle() {}
+
+    public static long pack(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    public static int index(long handle) {
+        return (int) handle;
+    }
+
+    public static int generation(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    public static String toString(long handle) {
+        return handle == NONE ? "Entity(none)" : "Entity(" + index(handle) + "v" + generation(handle) + ")";
+    }
+}
@@ -0,0 +1,20 @@
+package com.gameengine.core;
+
+import java.util.function.Supplier;
+
+/**
+ * GameObject 池。取出的对象记住所属的池，
+ * 失活后由场景在移除阶段自动归还，并通过 GameObject.reset() 重置所有组件。
+ */
+public class EntityPool extends ObjectPool<GameObject> {
+    public EntityPool(String name, Supplier<GameObject> factory) {
+        super(name, factory, GameObject::reset);
+    }
+
+    @Override
+    public GameObject acquire() {
+        GameObject obj = super.acquire();
+        obj.pool = this;
+        return obj;
+    }
+}
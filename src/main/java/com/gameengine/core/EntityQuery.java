@@ -0,0 +1,83 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 缓存的原型查询：只在出现新原型时增量匹配，遍历时不分配内存。
+ */
+public class EntityQuery {
+    private final EntityStorage storage;
+    private final long requiredMask;
+    private final List<Archetype> matched = new ArrayList<>();
+    private final List<Archetype> matchedView = Collections.unmodifiableList(matched);
+    private int scanned;
+    // forEachChanged 的变更刻列，跨调用复用；查询只由所属系统使用
+    private long[][] tickColumns = new long[2][];
+
+    EntityQuery(EntityStorage storage, Class<?>... required) {
+        this.storage = storage;
+        this.requiredMask = ComponentTypes.maskOf(required);
+        this.scanned = 0;
+    }
+
+    public List<Archetype> archetypes() {
+        List<Archetype> all = storage.getArchetypes();
+        for (; scanned < all.size(); scanned++) {
+            Archetype archetype = all.get(scanned);
+            if (archetype.hasAll(requiredMask)) matched.add(archetype);
+        }
+        return matchedView;
+    }
+
+    // sinceTick 之后（不含）加入存储的实体
+    public void forEachAdded(long sinceTick, Consumer<GameObject> action) {
+        List<Archetype> archetypes = archetypes();
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            long[] added = archetype.addedTicks();
+            for (int row = 0; row < archetype.size(); row++) {
+                if (added[row] > sinceTick) action.accept(archetype.entity(row));
+            }
+        }
+    }
+
+    /**
+     * sinceTick 之后（不含）任一给定组件被修改过的实体。新加入的实体也算修改。
+     * 只比较每行的变更刻，不触碰组件对象；但仍要扫描匹配原型的每一行，开销与行数成正比，
+     * 省下的是对未变化实体的回调和组件访问。
+     */
+    public void forEachChanged(long sinceTick, Consumer<GameObject> action, Class<?>... types) {
+        if (tickColumns.length < types.length) tickColumns = new long[types.length][];
+        List<Archetype> archetypes = archetypes();
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            // 每个原型每种类型只查一次变更刻列
+            int columns = 0;
+            for (Class<?> type : types) {
+                long[] ticks = archetype.changeTicks(type);
+                if (ticks != null) tickColumns[columns++] = ticks;
+            }
+            int size = archetype.size();
+            for (int row = 0; row < size; row++) {
+                for (int c = 0; c < columns; c++) {
+                    if (tickColumns[c][row] > sinceTick) {
+                        action.accept(archetype.entity(row));
+                        break;
+                    }
+                }
+            }
+        }
+        Arrays.fill(tickColumns, null);
+    }
+
+    public int count() {
+        int total = 0;
+        List<Archetype> archetypes = archetypes();
+        for (int a = 0; a < archetypes.size(); a++) total += archetypes.get(a).size();
+        return total;
+    }
+}
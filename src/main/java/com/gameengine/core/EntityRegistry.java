@@ -0,0 +1,74 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 为场景中的对象分配代际句柄，并能以 O(1) 把句柄解析回对象。
+ * 只在主线程（场景的添加/移除阶段）修改。
+ */
+public class EntityRegistry {
+    private GameObject[] objects = new GameObject[64];
+    private int[] generations = new int[64];
+    private int[] freeList = new int[64];
+    private int freeCount;
+    private int nextIndex;
+    private int aliveCount;
+
+    public long create(GameObject obj) {
+        int index;
+        if (freeCount > 0) {
+            index = freeList[--freeCount];
+        } else {
+            index = nextIndex++;
+            if (index >= objects.length) grow();
+        }
+        // 代数从 1 开始，保证有效句柄不为 NONE
+        int generation = generations[index] + 1;
+        generations[index] = generation;
+        objects[index] = obj;
+        aliveCount++;
+        long handle = EntityHandle.pack(index, generation);
+        obj.handle = handle;
+        return handle;
+    }
+
+    public void release(GameObject obj) {
+        long handle = obj.handle;
+        if (!isAlive(handle)) return;
+        int index = EntityHandle.index(handle);
+        objects[index] = null;
+        if (freeCount == freeList.length) freeList = Arrays.copyOf(freeList, freeList.length * 2);
+        freeList[freeCount++] = index;
+        aliveCount--;
+        obj.handle = EntityHandle.NONE;
+    }
+
+    public boolean isAlive(long handle) {
+        if (handle == EntityHandle.NONE) return false;
+        int index = EntityHandle.index(handle);
+        return index >= 0 && index < nextIndex
+            && generations[index] == EntityHandle.generation(handle)
+            && objects[index] != null;
+    }
+
+    // 句柄已失效时返回 null
+    public GameObject resolve(long handle) {
+        return isAlive(handle) ? objects[EntityHandle.index(handle)] : null;
+    }
+
+    public void clear() {
+        for (int i = 0; i < nextIndex; i++) {
+            if (objects[i] != null) release(objects[i]);
+        }
+    }
+
+    public int size() {
+        return aliveCount;
+    }
+
+    private void grow() {
+        int capacity = objects.length * 2;
+        objects = Arrays.copyOf(objects, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+    }
+}
@@ -0,0 +1,153 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 按原型组织的实体存储。GameObject/Component 仍然作为兼容门面，
+ * 系统可以通过 {@link EntityQuery} 直接线性遍历原型列。
+ */
+public class EntityStorage {
+    private final Map<Long, Archetype> archetypeMap = new HashMap<>();
+    private final List<Archetype> archetypes = new ArrayList<>();
+    // 只读视图随列表变化，建一次即可
+    private final List<Archetype> archetypeView = Collections.unmodifiableList(archetypes);
+    private int entityCount;
+    // 变更刻：场景每次 update 加一，组件修改、实体加入和移除都记在当前刻上
+    private long changeTick;
+    // 最近 REMOVED_HISTORY 个变更刻内移除的实体句柄，供“移除于第 N 刻之后”查询
+    private static final int REMOVED_HISTORY = 1024;
+    private long[] removedHandles = new long[64];
+    private long[] removedTicks = new long[64];
+    private int removedCount;
+    // 迁移时暂存旧原型中的组件变更刻，只在主线程使用
+    private final long[] migrateTicks = new long[ComponentTypes.MAX_TYPES];
+
+    public void add(GameObject obj) {
+        if (obj.archetype != null) return;
+        archetypeFor(obj).add(obj, changeTick, changeTick);
+        obj.storage = this;
+        entityCount++;
+    }
+
+    public void remove(GameObject obj) {
+        if (obj.storage != this || obj.archetype == null) return;
+        obj.archetype.remove(obj.archetypeRow);
+        obj.storage = null;
+        entityCount--;
+        logRemoved(obj.getHandle());
+    }
+
+    // 组件集合变化后把实体迁移到新的原型，保留已有组件的变更刻
+    void migrate(GameObject obj) {
+        if (obj.archetype == null) return;
+        Archetype target = archetypeFor(obj);
+        Archetype source = obj.archetype;
+        if (target == source) return;
+        int row = obj.archetypeRow;
+        long addedTick = source.addedTicks()[row];
+        for (int id = 0; id < ComponentTypes.MAX_TYPES; id++) migrateTicks[id] = source.changeTick(id, row);
+        source.remove(row);
+        target.add(obj, addedTick, changeTick);
+        for (int id = 0; id < ComponentTypes.MAX_TYPES; id++) {
+            if (migrateTicks[id] >= 0) target.markChanged(id, obj.archetypeRow, migrateTicks[id]);
+        }
+    }
+
+    /**
+     * 进入下一个变更刻，由场景在每次 update 开始时调用。
+     * 同时丢弃超出保留范围的移除记录。
+     */
+    public long advanceChangeTick() {
+        changeTick++;
+        long cutoff = changeTick - REMOVED_HISTORY;
+        int keep = 0;
+        while (keep < removedCount && removedTicks[keep] <= cutoff) keep++;
+        if (keep > 0) {
+            removedCount -= keep;
+            System.arraycopy(removedHandles, keep, removedHandles, 0, removedCount);
+            System.arraycopy(removedTicks, keep, removedTicks, 0, removedCount);
+        }
+        return changeTick;
+    }
+
+    public long getChangeTick() {
+        return changeTick;
+    }
+
+    // 组件在 tick 被修改；未绑定到本存储的对象忽略
+    void markChanged(GameObject obj, int typeId) {
+        if (obj.archetype != null) obj.archetype.markChanged(typeId, obj.archetypeRow, changeTick);
+    }
+
+    /**
+     * 依次回调 sinceTick 之后（不含）移除的实体句柄，按移除顺序。
+     * 只保留最近 1024 个变更刻，更早的查询会漏掉记录。
+     */
+    public void forEachRemovedSince(long sinceTick, LongConsumer action) {
+        for (int i = 0; i < removedCount; i++) {
+            if (removedTicks[i] > sinceTick) action.accept(removedHandles[i]);
+        }
+    }
+
+    private void logRemoved(long handle) {
+        if (removedCount == removedHandles.length) {
+            removedHandles = Arrays.copyOf(removedHandles, removedCount * 2);
+            removedTicks = Arrays.copyOf(removedTicks, removedCount * 2);
+        }
+        removedHandles[removedCount] = handle;
+        removedTicks[removedCount++] = changeTick;
+    }
+
+    private Archetype archetypeFor(GameObject obj) {
+        long signature = obj.getSignature();
+        Archetype archetype = archetypeMap.get(signature);
+        if (archetype == null) {
+            archetype = new Archetype(signature);
+            archetypeMap.put(signature, archetype);
+            archetypes.add(archetype);
+        }
+        return archetype;
+    }
+
+    /**
+     * 每个固定步开始前调用：把上一步写入的位置和速度提交为只读快照。
+     * 本步内各系统（包括工作线程）读取其他实体时走快照，写入只落在当前缓冲。
+     */
+    public void swapBuffers() {
+        for (int i = 0; i < archetypes.size(); i++) archetypes.get(i).swapBuffers();
+    }
+
+    public EntityQuery query(Class<?>... required) {
+        return new EntityQuery(this, required);
+    }
+
+    public void clear() {
+        for (Archetype archetype : archetypes) {
+            for (int row = archetype.size() - 1; row >= 0; row--) {
+                archetype.entity(row).storage = null;
+            }
+            archetype.clear();
+        }
+        entityCount = 0;
+        removedCount = 0;
+    }
+
+    // 原型只增不减，查询据此做增量匹配
+    List<Archetype> getArchetypes() {
+        return archetypeView;
+    }
+
+    public int getArchetypeCount() {
+        return archetypes.size();
+    }
+
+    public int size() {
+        return entityCount;
+    }
+}
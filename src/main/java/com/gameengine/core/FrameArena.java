@@ -0,0 +1,153 @@
+package com.gameengine.core;
+
+import com.gameengine.math.Vector2;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 帧内临时内存：每个线程一个，发放可复用的列表、集合、映射、基本类型数组和向量，
+ * 在 GameEngine 每个固定步结束时统一重置。拿到的对象只在本步内有效，不能跨步保存。
+ * 稳定运行后不再分配新的底层对象，{@link #allocations()} 不再增长。
+ */
+public final class FrameArena {
+    private static final ThreadLocal<FrameArena> CURRENT = ThreadLocal.withInitial(FrameArena::register);
+    private static final List<FrameArena> ARENAS = new CopyOnWriteArrayList<>();
+    // 所有线程的 arena 累计新建的底层对象数，稳定后应停止增长
+    private static final AtomicLong ALLOCATIONS = new AtomicLong();
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final Thread owner;
+    private final List<ArrayList<Object>> lists = new ArrayList<>();
+    private final List<HashSet<Object>> sets = new ArrayList<>();
+    private final List<HashMap<Object, Object>> maps = new ArrayList<>();
+    private final List<Vector2> vectors = new ArrayList<>();
+    private int listsUsed, setsUsed, mapsUsed, vectorsUsed;
+    private int[] ints = new int[0];
+    private float[] floats = new float[0];
+
+    private FrameArena(Thread owner) {
+        this.owner = owner;
+    }
+
+    private static FrameArena register() {
+        FrameArena arena = new FrameArena(Thread.currentThread());
+        ARENAS.add(arena);
+        return arena;
+    }
+
+    // 当前线程的 arena
+    public static FrameArena get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 重置所有线程的 arena。只能在没有系统或并行更新运行时调用（固定步末尾）；
+     * 跨步运行的帧任务不要使用 arena。
+     */
+    public static void resetAll() {
+        for (int i = 0; i < ARENAS.size(); i++) ARENAS.get(i).reset();
+    }
+
+    public static long allocations() {
+        return ALLOCATIONS.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> list() {
+        if (listsUsed == lists.size()) {
+            lists.add(new ArrayList<>());
+            ALLOCATIONS.incrementAndGet();
+        }
+        return (List<T>) lists.get(listsUsed++);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Set<T> set() {
+        if (setsUsed == sets.size()) {
+            sets.add(new HashSet<>());
+            ALLOCATIONS.incrementAndGet();
+        }
+        return (Set<T>) sets.get(setsUsed++);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> map() {
+        if (mapsUsed == maps.size()) {
+            maps.add(new HashMap<>());
+            ALLOCATIONS.incrementAndGet();
+        }
+        return (Map<K, V>) maps.get(mapsUsed++);
+    }
+
+    public Vector2 vector(float x, float y) {
+        if (vectorsUsed == vectors.size()) {
+            vectors.add(new Vector2());
+            ALLOCATIONS.incrementAndGet();
+        }
+        return vectors.get(vectorsUsed++).set(x, y);
+    }
+
+    /**
+     * 长度至少为 minLength 的 int 缓冲，内容未清零。
+     * 每个线程只有一块，同一步内再次调用会返回同一数组。
+     */
+    public int[] ints(int minLength) {
+        if (ints.length < minLength) {
+            ints = Arrays.copyOf(ints, Math.max(minLength, ints.length * 2));
+            ALLOCATIONS.incrementAndGet();
+        }
+        return ints;
+    }
+
+    public float[] floats(int minLength) {
+        if (floats.length < minLength) {
+            floats = Arrays.copyOf(floats, Math.max(minLength, floats.length * 2));
+            ALLOCATIONS.incrementAndGet();
+        }
+        return floats;
+    }
+
+    // 清空发放过的容器，释放对元素的引用
+    private void reset() {
+        for (int i = 0; i < listsUsed; i++) lists.get(i).clear();
+        for (int i = 0; i < setsUsed; i++) sets.get(i).clear();
+        for (int i = 0; i < mapsUsed; i++) maps.get(i).clear();
+        listsUsed = setsUsed = mapsUsed = vectorsUsed = 0;
+    }
+
+    /**
+     * 当前线程到目前为止在堆上分配的字节数，JVM 不支持时返回 -1。
+     * 用来验证一个固定步内是否还有分配。
+     */
+    public static long threadAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = ALLOCATION_BEAN;
+        if (bean == null || !bean.isThreadAllocatedMemoryEnabled()) return -1;
+        // 按线程 ID 查询的重载每次调用自身也有少量分配
+        return bean.getCurrentThreadAllocatedBytes();
+    }
+
+    // 查找 MXBean 本身会分配，只做一次
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            return (com.sun.management.ThreadMXBean) bean;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameArena[" + owner.getName() + " lists=" + lists.size() + " sets=" + sets.size()
+            + " maps=" + maps.size() + " vectors=" + vectors.size() + "]";
+    }
+}
@@ -0,0 +1,204 @@
+package com.gameengine.core;
+
+import com.gameengine.graphics.IRenderer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 帧节奏控制：一帧渲染结束后等待到下一帧的开始时刻。
+ * 截止时间按周期累加而不是"醒来时刻 + 周期"，所以不会逐帧漂移；
+ * 落后超过一个周期时重新对齐，不补帧。
+ */
+public abstract class FramePacer {
+    public enum Mode {
+        HYBRID,       // 先睡眠再自旋到截止时间
+        EVENT_DRIVEN, // 用 glfwWaitEventsTimeout 等待，空闲时几乎不占 CPU
+        VSYNC,        // 交给垂直同步，在交换缓冲时阻塞
+        UNCAPPED      // 不限帧率
+    }
+
+    protected final FrameStats stats = new FrameStats();
+    private long periodNanos;
+    private long nextDeadline;
+    private long lastFrameStart;
+
+    protected FramePacer(float targetFPS) {
+        setTargetFPS(targetFPS);
+    }
+
+    public static FramePacer create(Mode mode, float targetFPS) {
+        switch (mode) {
+            case HYBRID: return new Hybrid(targetFPS);
+            case EVENT_DRIVEN: return new EventDriven(targetFPS);
+            case VSYNC: return new VSync();
+            case UNCAPPED: return new Uncapped();
+        }
+        throw new IllegalArgumentException("不支持的帧节奏模式: " + mode);
+    }
+
+    public abstract Mode getMode();
+
+    // 小于等于 0 表示不按截止时间等待
+    public void setTargetFPS(float fps) {
+        this.periodNanos = fps > 0 ? (long) (1_000_000_000.0 / fps) : 0;
+        reset();
+    }
+
+    // 主循环开始时调用，从当前时刻开始排截止时间
+    public void reset() {
+        long now = System.nanoTime();
+        nextDeadline = now + periodNanos;
+        lastFrameStart = 0;
+    }
+
+    // 安装到引擎时调用，可以调整渲染器设置（如垂直同步）
+    public void attach(IRenderer renderer) {}
+
+    // 为 true 时等待过程中已经处理了窗口事件，引擎本帧不再 pollEvents
+    public boolean pumpsEvents() {
+        return false;
+    }
+
+    // 一帧结束时调用，阻塞到下一帧开始
+    public final void sync(IRenderer renderer) {
+        if (periodNanos > 0) {
+            waitUntil(nextDeadline, renderer);
+            long woke = System.nanoTime();
+            stats.recordLateness(woke - nextDeadline);
+            nextDeadline += periodNanos;
+            if (woke - nextDeadline > periodNanos) {
+                nextDeadline = woke + periodNanos;
+                stats.recordMissed();
+            }
+        } else {
+            waitUntil(System.nanoTime(), renderer);
+        }
+        long start = System.nanoTime();
+        if (lastFrameStart != 0) stats.recordFrame(start - lastFrameStart);
+        lastFrameStart = start;
+    }
+
+    // 等到 deadline；deadline 已过时应立即返回
+    protected abstract void waitUntil(long deadline, IRenderer renderer);
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return getMode() + " " + stats;
+    }
+
+    // 睡眠到截止时间前 spinThreshold，再自旋补齐，避免睡过头
+    static class Hybrid extends FramePacer {
+        private long spinThresholdNanos = 1_000_000;
+
+        Hybrid(float targetFPS) {
+            super(targetFPS);
+        }
+
+        @Override
+        public Mode getMode() {
+            return Mode.HYBRID;
+        }
+
+        public void setSpinThresholdNanos(long spinThresholdNanos) {
+            this.spinThresholdNanos = Math.max(0, spinThresholdNanos);
+        }
+
+        @Override
+        protected void waitUntil(long deadline, IRenderer renderer) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > spinThresholdNanos) {
+                LockSupport.parkNanos(remaining - spinThresholdNanos);
+                if (Thread.currentThread().isInterrupted()) return;
+            }
+            while (deadline - System.nanoTime() > 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // 在窗口事件上阻塞等待，有事件到来时处理后继续等到截止时间
+    static class EventDriven extends FramePacer {
+        EventDriven(float targetFPS) {
+            super(targetFPS);
+        }
+
+        @Override
+        public Mode getMode() {
+            return Mode.EVENT_DRIVEN;
+        }
+
+        @Override
+        public boolean pumpsEvents() {
+            return true;
+        }
+
+        @Override
+        protected void waitUntil(long deadline, IRenderer renderer) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                renderer.pollEvents();
+                return;
+            }
+            while (remaining > 0) {
+                renderer.waitEvents(remaining / 1_000_000_000.0);
+                if (Thread.currentThread().isInterrupted()) return;
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    // 节奏由交换缓冲决定，这里只统计
+    static class VSync extends FramePacer {
+        VSync() {
+            super(0);
+        }
+
+        // 不按截止时间等待，忽略目标帧率
+        @Override
+        public void setTargetFPS(float fps) {
+            super.setTargetFPS(0);
+        }
+
+        @Override
+        public Mode getMode() {
+            return Mode.VSYNC;
+        }
+
+        @Override
+        public void attach(IRenderer renderer) {
+            renderer.setVSync(true);
+        }
+
+        @Override
+        protected void waitUntil(long deadline, IRenderer renderer) {}
+    }
+
+    static class Uncapped extends FramePacer {
+        Uncapped() {
+            super(0);
+        }
+
+        // 不按截止时间等待，忽略目标帧率
+        @Override
+        public void setTargetFPS(float fps) {
+            super.setTargetFPS(0);
+        }
+
+        @Override
+        public Mode getMode() {
+            return Mode.UNCAPPED;
+        }
+
+        @Override
+        public void attach(IRenderer renderer) {
+            renderer.setVSync(false);
+        }
+
+        @Override
+        protected void waitUntil(long deadline, IRenderer renderer) {}
+    }
+}
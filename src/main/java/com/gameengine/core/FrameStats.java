@@ -0,0 +1,55 @@
+package com.gameengine.core;
+
+/**
+ * 帧节奏统计：帧间隔的均值与抖动（标准差），以及相对截止时间的醒来延迟。
+ */
+public class FrameStats {
+    private long frames;
+    private double meanInterval;
+    private double m2; // Welford 累积的方差项
+    private long lateSamples;
+    private double totalLateness;
+    private long maxLateness;
+    private long missedDeadlines;
+
+    void recordFrame(long intervalNanos) {
+        frames++;
+        double delta = intervalNanos - meanInterval;
+        meanInterval += delta / frames;
+        m2 += delta * (intervalNanos - meanInterval);
+    }
+
+    // 醒来时间减去截止时间，正数表示晚了
+    void recordLateness(long latenessNanos) {
+        lateSamples++;
+        totalLateness += latenessNanos;
+        if (latenessNanos > maxLateness) maxLateness = latenessNanos;
+    }
+
+    void recordMissed() {
+        missedDeadlines++;
+    }
+
+    public void reset() {
+        frames = 0;
+        meanInterval = 0;
+        m2 = 0;
+        lateSamples = 0;
+        totalLateness = 0;
+        maxLateness = 0;
+        missedDeadlines = 0;
+    }
+
+    public long getFrameCount() { return frames; }
+    public double getMeanFrameMillis() { return meanInterval / 1_000_000.0; }
+    public double getJitterMillis() { return frames > 1 ? Math.sqrt(m2 / (frames - 1)) / 1_000_000.0 : 0; }
+    public double getMeanLatenessMillis() { return lateSamples > 0 ? totalLateness / lateSamples / 1_000_000.0 : 0; }
+    public double getMaxLatenessMillis() { return maxLateness / 1_000_000.0; }
+    public long getMissedDeadlines() { return missedDeadlines; }
+
+    @Override
+    public String toString() {
+        return String.format("FrameStats frames=%d mean=%.3fms jitter=%.3fms late(avg=%.3fms max=%.3fms) missed=%d",
+            frames, getMeanFrameMillis(), getJitterMillis(), getMeanLatenessMillis(), getMaxLatenessMillis(), missedDeadlines);
+    }
+}
@@ -12,10 +12,29 @@ public class GameEngine {
     private InputManager inputManager;
     private Scene currentScene;
     private PhysicsSystem physicsSystem;
+    // 引擎持有的任务系统，场景切换时不重建
+    private final JobSystem jobSystem;
     private boolean running;
     private float targetFPS;
     private float deltaTime;
-    private long lastTime;
+    // 固定步长模拟：每秒 tickRate 步，一帧最多追 maxCatchUpSteps 步
+    private float tickRate;
+    private int maxCatchUpSteps;
+    private long accumulatorNanos;
+    private float interpolationAlpha;
+    private long droppedNanos;
+    // 帧节奏策略，可替换
+    private FramePacer framePacer;
+    // 虚拟时钟：每帧正好推进一个固定步，与真实时间无关，尽可能快地运行
+    private boolean virtualClock;
+    private long tickCount;
+    private long tickLimit;
+    // 确定性模式：固定会话种子，场景顺序稳定，每步计算状态校验和
+    private boolean deterministic;
+    private RandomStreams randomStreams;
+    private long stateChecksum;
+    // 上一个固定步在主线程上分配的字节数（JVM 不支持时为 -1），用于检查稳定期零分配
+    private long lastStepAllocatedBytes = -1;
     @SuppressWarnings("unused")
     private String title;
     // 新录制服务（可选）
@@ -26,14 +45,28 @@ public class GameEngine {
     }
     
     public GameEngine(int width, int height, String title, RenderBackend backend) {
+        this(width, height, title, backend, JobSystem.defaultParallelism());
+    }
+
+    // workers：任务系统的工作线程数，自检用它比较不同线程数下的结果
+    public GameEngine(int width, int height, String title, RenderBackend backend, int workers) {
         this.title = title;
         this.renderer = RendererFactory.createRenderer(backend, width, height, title);
         this.inputManager = InputManager.getInstance();
+        this.jobSystem = new JobSystem(workers);
         this.running = false;
         this.targetFPS = 60.0f;
         this.deltaTime = 0.0f;
-        this.lastTime = System.nanoTime();
-        
+        this.tickRate = 60.0f;
+        this.maxCatchUpSteps = 5;
+        this.interpolationAlpha = 1.0f;
+        this.framePacer = FramePacer.create(FramePacer.Mode.HYBRID, targetFPS);
+        this.virtualClock = false;
+        this.tickCount = 0;
+        this.tickLimit = 0;
+        this.deterministic = false;
+        this.randomStreams = RandomStreams.unseeded();
+
     }
     
     public boolean initialize() {
@@ -53,57 +86,84 @@ public class GameEngine {
             if (currentScene.getName().equals("MainMenu")) {
                 physicsSystem = null;
             } else {
-                physicsSystem = new PhysicsSystem(currentScene, renderer.getWidth(), renderer.getHeight());
+                physicsSystem = createPhysicsSystem(currentScene);
+                currentScene.getSystems().add(physicsSystem);
             }
             
         }
         
+        framePacer.attach(renderer);
+        framePacer.reset();
         long lastFrameTime = System.nanoTime();
-        long frameTimeNanos = (long)(1_000_000_000.0 / targetFPS);
+        accumulatorNanos = 0;
         
         while (running) {
-            long currentTime = System.nanoTime();
-            
-            if (currentTime - lastFrameTime >= frameTimeNanos) {
-                update();
-                if (running) {
-                    render();
-                }
-                lastFrameTime = currentTime;
+            // 每帧只处理一次窗口事件；事件驱动的节奏器在等待时已经处理过
+            if (!framePacer.pumpsEvents()) {
+                renderer.pollEvents();
             }
             
-            renderer.pollEvents();
+            long currentTime = System.nanoTime();
+            advance(virtualClock ? getStepNanos() : currentTime - lastFrameTime);
+            lastFrameTime = currentTime;
+            if (running) {
+                render();
+            }
             
             if (renderer.shouldClose()) {
                 running = false;
             }
             
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
+            framePacer.sync(renderer);
+            if (Thread.currentThread().isInterrupted()) {
                 break;
             }
         }
     }
     
-    private void update() {
-        long currentTime = System.nanoTime();
-        deltaTime = (currentTime - lastTime) / 1_000_000_000.0f;
-        lastTime = currentTime;
-        
-        renderer.pollEvents();
-        
+    /**
+     * 把经过的真实时间累积起来，按固定步长推进模拟。
+     * 一帧内追赶的步数有上限，超出的时间直接丢弃，避免卡顿后越追越慢。
+     */
+    private void advance(long elapsedNanos) {
+        long stepNanos = getStepNanos();
+        accumulatorNanos += elapsedNanos;
+        int steps = 0;
+        while (running && accumulatorNanos >= stepNanos && steps < maxCatchUpSteps) {
+            update(stepNanos / 1_000_000_000.0f);
+            accumulatorNanos -= stepNanos;
+            steps++;
+        }
+        if (accumulatorNanos >= stepNanos) {
+            droppedNanos += accumulatorNanos - accumulatorNanos % stepNanos;
+            accumulatorNanos %= stepNanos;
+        }
+        interpolationAlpha = (float) accumulatorNanos / stepNanos;
+        if (currentScene != null) currentScene.setInterpolationAlpha(interpolationAlpha);
+    }
+
+    // 推进一个固定步
+    private void update(float stepSeconds) {
+        deltaTime = stepSeconds;
+        tickCount++;
+        long allocatedBefore = FrameArena.threadAllocatedBytes();
+        // 上一步提交的帧任务（如录制序列化）读的是上一步的状态，修改场景前等它们完成
+        jobSystem.awaitFrameTasks();
         
+        if (currentScene != null) {
+            currentScene.getStorage().swapBuffers();
+        }
         
         if (currentScene != null) {
             currentScene.update(deltaTime);
         }
         
-        if (physicsSystem != null) {
-            physicsSystem.update(deltaTime);
+        if (deterministic && currentScene != null) {
+            stateChecksum = StateChecksum.compute(currentScene.getStorage());
         }
         
         if (recordingService != null && recordingService.isRecording()) {
+            recordingService.setStateChecksum(stateChecksum);
             recordingService.update(deltaTime, currentScene, inputManager);
         }
         
@@ -118,6 +178,14 @@ public class GameEngine {
             running = false;
             cleanup();
         }
+        
+        if (tickLimit > 0 && tickCount >= tickLimit && running) {
+            running = false;
+        }
+        
+        // 本步发放的临时容器全部收回
+        FrameArena.resetAll();
+        lastStepAllocatedBytes = allocatedBefore < 0 ? -1 : FrameArena.threadAllocatedBytes() - allocatedBefore;
     }
     
     private void render() {
@@ -142,16 +210,27 @@ public class GameEngine {
         }
         this.currentScene = scene;
         if (scene != null) {
+            scene.getSystems().setExecutor(jobSystem.executor());
+            scene.setJobSystem(jobSystem);
+            if (deterministic) scene.setDeterministicOrder(true);
             if (running) {
                 scene.initialize();
                 if (!scene.getName().equals("MainMenu") && !scene.getName().equals("Replay")) 
                 {
-                    physicsSystem = new PhysicsSystem(scene, renderer.getWidth(), renderer.getHeight());//在游戏中创建了物理系统
+                    physicsSystem = createPhysicsSystem(scene);//在游戏中创建了物理系统
+                    scene.getSystems().add(physicsSystem);
                 }
             }
         }
     }
     
+    // 场景初始化之后调用，此时场景的宽相已经创建
+    private PhysicsSystem createPhysicsSystem(Scene scene) {
+        PhysicsSystem physics = new PhysicsSystem(scene, renderer.getWidth(), renderer.getHeight(), jobSystem);
+        physics.setBroadphase(scene.getBroadphase());
+        return physics;
+    }
+    
     public Scene getCurrentScene() {
         return currentScene;
     }
@@ -161,6 +240,7 @@ public class GameEngine {
     }
     
     public void cleanup() {
+        jobSystem.awaitFrameTasks();
         if (recordingService != null && recordingService.isRecording()) {
             try { recordingService.stop(); } catch (Exception ignored) {}
         }
@@ -171,13 +251,22 @@ public class GameEngine {
             currentScene.clear();
         }
         renderer.cleanup();
+        jobSystem.shutdown();
     }
 
     // 可选：外部启用录制（按需调用）
     public void enableRecording(com.gameengine.recording.RecordingService service) {
         this.recordingService = service;
         try {
+            if (service != null) {
+                service.setJobSystem(jobSystem);
+            }
+            if (service != null && deterministic) {
+                service.setSessionSeed(randomStreams.getSeed());
+            }
             if (service != null && currentScene != null) {
+                // 录制时保持对象顺序稳定，关键帧实体顺序可复现
+                currentScene.setDeterministicOrder(true);
                 service.start(currentScene, renderer.getWidth(), renderer.getHeight());
             }
         } catch (Exception e) {
@@ -198,6 +287,15 @@ public class GameEngine {
         return renderer;
     }
     
+    public JobSystem getJobSystem() {
+        return jobSystem;
+    }
+
+    // 当前游戏场景的物理系统，菜单与回放场景为 null
+    public PhysicsSystem getPhysicsSystem() {
+        return physicsSystem;
+    }
+    
     public InputManager getInputManager() {
         return inputManager;
     }
@@ -206,8 +304,112 @@ public class GameEngine {
         return deltaTime;
     }
     
+    // 模拟频率，与渲染帧率无关；负载高时可以调低
+    public void setTickRate(float tickRate) {
+        if (tickRate <= 0) throw new IllegalArgumentException("tickRate must be positive");
+        this.tickRate = tickRate;
+    }
+    
+    public float getTickRate() {
+        return tickRate;
+    }
+    
+    public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    }
+    
+    public int getMaxCatchUpSteps() {
+        return maxCatchUpSteps;
+    }
+    
+    // 当前帧在上一步与下一步之间的位置，范围 [0, 1)
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+    
+    // 因追赶步数上限而丢弃的模拟时间（纳秒）
+    public long getDroppedSimulationNanos() {
+        return droppedNanos;
+    }
+    
+    private long getStepNanos() {
+        return (long) (1_000_000_000.0 / tickRate);
+    }
+    
+    /**
+     * 开启后每帧推进一个固定步并且不限帧率，模拟结果与真实时间无关；
+     * 通常与 HEADLESS 后端一起用于服务器运行和基准测试。
+     */
+    public void setVirtualClock(boolean virtualClock) {
+        this.virtualClock = virtualClock;
+        if (virtualClock) {
+            setFramePacing(FramePacer.Mode.UNCAPPED);
+        }
+    }
+    
+    public boolean isVirtualClock() {
+        return virtualClock;
+    }
+    
+    // 运行指定步数后停止主循环，0 表示不限
+    public void setTickLimit(long tickLimit) {
+        this.tickLimit = Math.max(0, tickLimit);
+    }
+    
+    public long getTickCount() {
+        return tickCount;
+    }
+    
+    /**
+     * 开启确定性模式：所有系统的随机流都从 seed 派生，场景保持稳定顺序，
+     * 每步结束后计算状态校验和。需要在设置场景之前调用。
+     */
+    public void setDeterministic(long seed) {
+        this.deterministic = true;
+        this.randomStreams = new RandomStreams(seed);
+        if (currentScene != null) currentScene.setDeterministicOrder(true);
+    }
+    
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+    
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+    
+    // 最近一步的状态校验和，仅确定性模式下有效
+    public long getStateChecksum() {
+        return stateChecksum;
+    }
+
+    public long getLastStepAllocatedBytes() {
+        return lastStepAllocatedBytes;
+    }
+    
     public void setTargetFPS(float fps) {
         this.targetFPS = fps;
+        framePacer.setTargetFPS(fps);
+    }
+    
+    public void setFramePacing(FramePacer.Mode mode) {
+        setFramePacer(FramePacer.create(mode, targetFPS));
+    }
+    
+    public void setFramePacer(FramePacer framePacer) {
+        this.framePacer = framePacer;
+        if (running) {
+            framePacer.attach(renderer);
+            framePacer.reset();
+        }
+    }
+    
+    public FramePacer getFramePacer() {
+        return framePacer;
+    }
+    
+    public FrameStats getFrameStats() {
+        return framePacer.getStats();
     }
     
     public float getTargetFPS() {
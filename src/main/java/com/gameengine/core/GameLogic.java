@@ -5,80 +5,135 @@ import com.gameengine.components.HealthComponent;
 import com.gameengine.components.PhysicsComponent;
 import com.gameengine.components.TransformComponent;
 import com.gameengine.input.InputManager;
-import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
 
 public class GameLogic {
+    // AI 的目标速度和换向计时，原地更新，避免每帧装箱和分配
+    private static class AIState {
+        float targetX;
+        float targetY;
+        float timer;
+        // 每个 AI 独立的随机流，结果与遍历次序无关
+        SplittableRandom random;
+        // 状态所属的句柄；池化的 AI 再次取出时句柄不同，从新状态开始
+        long handle = EntityHandle.NONE;
+    }
+
     private Scene scene;
     private InputManager inputManager;
-    private Random random;
+    private RandomStreams randomStreams;
     private boolean gameOver;
+    // 本步开始时的游戏结束状态；并行系统只读它，不读会被碰撞系统改写的 gameOver
+    private boolean gameOverAtTickStart;
     private GameEngine gameEngine;
-    private Map<GameObject, Vector2> aiTargetVelocities;
-    private Map<GameObject, Float> aiTargetUpdateTimers;
-    private ExecutorService avoidanceExecutor;
+    private Map<GameObject, AIState> aiStates;
+    // 引擎共享的任务系统，未设置引擎时串行
+    private JobSystem jobs;
+    // 碰撞检测的宽相，两个碰撞系统只消费它输出的接触对
+    private Broadphase broadphase;
+    // AI 避让的格子列表与力缓冲，跨步复用
+    private AvoidanceSolver avoidance;
     
     public GameLogic(Scene scene) {
         this.scene = scene;
         this.inputManager = InputManager.getInstance();
-        this.random = new Random();
+        this.randomStreams = RandomStreams.unseeded();
         this.gameOver = false;
-        this.aiTargetVelocities = new HashMap<>();
-        this.aiTargetUpdateTimers = new HashMap<>();
-        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        this.avoidanceExecutor = Executors.newFixedThreadPool(threadCount);
+        this.aiStates = new HashMap<>();
     }
     
+    // 线程池由 GameEngine 持有，这里没有需要释放的资源
     public void cleanup() {
-        if (avoidanceExecutor != null && !avoidanceExecutor.isShutdown()) {
-            avoidanceExecutor.shutdown();
-            try {
-                if (!avoidanceExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    avoidanceExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                avoidanceExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
     }
     
     public void setGameEngine(GameEngine engine) {
         this.gameEngine = engine;
+        if (engine != null) {
+            this.randomStreams = engine.getRandomStreams();
+            this.jobs = engine.getJobSystem();
+        }
     }
     
     public boolean isGameOver() {
         return gameOver;
     }
     
+    // 每步运行系统之前调用
+    public void beginTick() {
+        gameOverAtTickStart = gameOver;
+    }
+    
+    /**
+     * 把各个步骤注册为系统。读写声明决定了哪些步骤可以并行：
+     * AI 移动/避让与两个碰撞检测互不冲突，可以同时运行；清理会增删对象，独占执行。
+     */
+    public void registerSystems(SystemScheduler systems) {
+        broadphase = new Broadphase(scene, jobs);
+        avoidance = new AvoidanceSolver(jobs);
+        systems.add(GameSystem.of("PlayerInput",
+            new Class<?>[] { InputManager.class, GameObject.class },
+            new Class<?>[] { PhysicsComponent.class, TransformComponent.class },
+            this::handlePlayerInput));
+        systems.add(GameSystem.of("AIMovement",
+            new Class<?>[] { GameObject.class },
+            new Class<?>[] { PhysicsComponent.class },
+            this::handleAIPlayerMovement));
+        // 避让只读位置快照，不读当前位置
+        systems.add(GameSystem.of("AIAvoidance",
+            new Class<?>[] { GameObject.class },
+            new Class<?>[] { PhysicsComponent.class },
+            this::handleAIPlayerAvoidance));
+        systems.add(new SpatialIndexSystem(scene));
+        systems.add(broadphase);
+        systems.add(GameSystem.of("Collisions",
+            new Class<?>[] { GameObject.class, Broadphase.class },
+            new Class<?>[] { HealthComponent.class, GameLogic.class },
+            dt -> checkCollisions()));
+        // 命中会写子弹的 hasHit 并销毁子弹；不在命令缓冲中时立即失活，所以也写 GameObject
+        systems.add(GameSystem.of("BulletCollisions",
+            new Class<?>[] { Broadphase.class },
+            new Class<?>[] { HealthComponent.class, BulletComponent.class, GameObject.class },
+            dt -> checkBulletCollisions()));
+        systems.add(GameSystem.exclusive("Cleanup", dt -> cleanupDeadObjects()));
+    }
+    
+    public Broadphase getBroadphase() {
+        return broadphase;
+    }
+    
+    public AvoidanceSolver getAvoidance() {
+        return avoidance;
+    }
+    
     public GameObject getUserPlayer() {
-        for (GameObject obj : scene.getGameObjects()) {
-            if (obj.getName().equals("Player") && obj.hasComponent(PhysicsComponent.class)) {
-                return obj;
-            }
-        }
-        return null;
+        GameObject player = scene.findFirstByTag(Tags.PLAYER);
+        return player != null && player.hasComponent(PhysicsComponent.class) ? player : null;
     }
     
+    /**
+     * 返回当前存活的 AI 玩家。列表取自当前线程的 FrameArena，只在本步内有效。
+     */
     public List<GameObject> getAIPlayers() {
-        return scene.getGameObjects().stream()
-            .filter(obj -> obj.getName().startsWith("AIPlayer"))
-            .filter(obj -> obj.isActive())
-            .collect(Collectors.toList());
+        return getAIPlayers(FrameArena.get().list());
+    }
+    
+    // 填充调用方的缓冲，可以在多个系统中并行调用
+    public List<GameObject> getAIPlayers(List<GameObject> out) {
+        out.clear();
+        List<GameObject> enemies = scene.findByTag(Tags.ENEMY);
+        for (int i = 0; i < enemies.size(); i++) {
+            GameObject obj = enemies.get(i);
+            if (obj.isActive()) out.add(obj);
+        }
+        return out;
     }
     
     public void handlePlayerInput(float deltaTime) {
-        if (gameOver) return;
+        if (gameOverAtTickStart) return;
         
         GameObject player = getUserPlayer();
         if (player == null) return;
@@ -88,186 +143,96 @@ public class GameLogic {
         
         if (transform == null || physics == null) return;
         
-        Vector2 movement = new Vector2();
+        float moveX = 0, moveY = 0;
         
         // W / UpArrow (AWT=38, GLFW=265)
         if (inputManager.isKeyPressed(87) || inputManager.isKeyPressed(38) || inputManager.isKeyPressed(265)) {
-            movement.y -= 1;
+            moveY -= 1;
         }
         // S / DownArrow (AWT=40, GLFW=264)
         if (inputManager.isKeyPressed(83) || inputManager.isKeyPressed(40) || inputManager.isKeyPressed(264)) {
-            movement.y += 1;
+            moveY += 1;
         }
         // A / LeftArrow (AWT=37, GLFW=263)
         if (inputManager.isKeyPressed(65) || inputManager.isKeyPressed(37) || inputManager.isKeyPressed(263)) {
-            movement.x -= 1;
+            moveX -= 1;
         }
         // D / RightArrow (AWT=39, GLFW=262)
         if (inputManager.isKeyPressed(68) || inputManager.isKeyPressed(39) || inputManager.isKeyPressed(262)) {
-            movement.x += 1;
+            moveX += 1;
         }
         
-        if (movement.magnitude() > 0) {
-            movement = movement.normalize().multiply(200);
-            physics.setVelocity(movement);
+        float moveLen = (float) Math.sqrt(moveX * moveX + moveY * moveY);
+        if (moveLen > 0) {
+            physics.setVelocity(moveX / moveLen * 200, moveY / moveLen * 200);
         }
         
-        Vector2 pos = transform.getPosition();
         int screenW = gameEngine != null && gameEngine.getRenderer() != null ? gameEngine.getRenderer().getWidth() : 1920;
         int screenH = gameEngine != null && gameEngine.getRenderer() != null ? gameEngine.getRenderer().getHeight() : 1080;
-        if (pos.x < 0) pos.x = 0;
-        if (pos.y < 0) pos.y = 0;
-        if (pos.x > screenW - 20) pos.x = screenW - 20;
-        if (pos.y > screenH - 20) pos.y = screenH - 20;
-        transform.setPosition(pos);
+        float x = Math.max(0, Math.min(screenW - 20, transform.getX()));
+        float y = Math.max(0, Math.min(screenH - 20, transform.getY()));
+        transform.setXY(x, y);
     }
     
     public void handleAIPlayerMovement(float deltaTime) {
-        if (gameOver) return;
+        if (gameOverAtTickStart) return;
         
         List<GameObject> aiPlayers = getAIPlayers();
         
-        for (GameObject aiPlayer : aiPlayers) {
+        for (int i = 0; i < aiPlayers.size(); i++) {
+            GameObject aiPlayer = aiPlayers.get(i);
             PhysicsComponent physics = aiPlayer.getComponent(PhysicsComponent.class);
             if (physics == null) continue;
             
-            if (!aiTargetVelocities.containsKey(aiPlayer)) {
-                Vector2 initialTarget = new Vector2(
-                    (random.nextFloat() - 0.5f) * 150,
-                    (random.nextFloat() - 0.5f) * 150
-                );
-                aiTargetVelocities.put(aiPlayer, initialTarget);
-                aiTargetUpdateTimers.put(aiPlayer, 0f);
+            AIState state = aiStates.get(aiPlayer);
+            if (state == null) {
+                state = new AIState();
+                aiStates.put(aiPlayer, state);
+            }
+            if (state.handle != aiPlayer.getHandle()) {
+                state.handle = aiPlayer.getHandle();
+                state.random = randomStreams.forEntity("GameLogic", state.handle);
+                state.targetX = (state.random.nextFloat() - 0.5f) * 150;
+                state.targetY = (state.random.nextFloat() - 0.5f) * 150;
+                state.timer = 0f;
             }
             
-            float timer = aiTargetUpdateTimers.get(aiPlayer) + deltaTime;
-            aiTargetUpdateTimers.put(aiPlayer, timer);
+            state.timer += deltaTime;
             
-            if (timer >= (2.0f + random.nextFloat() * 2.0f)) {
-                Vector2 newTarget = new Vector2(
-                    (random.nextFloat() - 0.5f) * 150,
-                    (random.nextFloat() - 0.5f) * 150
-                );
-                aiTargetVelocities.put(aiPlayer, newTarget);
-                aiTargetUpdateTimers.put(aiPlayer, 0f);
+            if (state.timer >= (2.0f + state.random.nextFloat() * 2.0f)) {
+                state.targetX = (state.random.nextFloat() - 0.5f) * 150;
+                state.targetY = (state.random.nextFloat() - 0.5f) * 150;
+                state.timer = 0f;
             }
             
-            Vector2 currentVelocity = physics.getVelocity();
-            Vector2 targetVelocity = aiTargetVelocities.get(aiPlayer);
+            float vx = physics.getVelocityX();
+            float vy = physics.getVelocityY();
             
             float lerpFactor = 0.1f;
-            Vector2 newVelocity = new Vector2(
-                currentVelocity.x + (targetVelocity.x - currentVelocity.x) * lerpFactor,
-                currentVelocity.y + (targetVelocity.y - currentVelocity.y) * lerpFactor
-            );
+            float newX = vx + (state.targetX - vx) * lerpFactor;
+            float newY = vy + (state.targetY - vy) * lerpFactor;
             
             float maxSpeed = 150f;
-            if (newVelocity.magnitude() > maxSpeed) {
-                newVelocity = newVelocity.normalize().multiply(maxSpeed);
+            float speed = (float) Math.sqrt(newX * newX + newY * newY);
+            if (speed > maxSpeed) {
+                newX = newX / speed * maxSpeed;
+                newY = newY / speed * maxSpeed;
             }
             
-            physics.setVelocity(newVelocity);
+            physics.setVelocity(newX, newY);
         }
     }
     
     
     public void handleAIPlayerAvoidance(float deltaTime) {
-        if (gameOver) return;
+        if (gameOverAtTickStart) return;
         
         List<GameObject> aiPlayers = getAIPlayers();
         if (aiPlayers.isEmpty()) return;
-        
-        if (aiPlayers.size() < 10) {
-            handleAIPlayerAvoidanceSerial(aiPlayers, deltaTime);
-        } else {
-            handleAIPlayerAvoidanceParallel(aiPlayers, deltaTime);
-        }
-    }
-    
-    private void handleAIPlayerAvoidanceSerial(List<GameObject> aiPlayers, float deltaTime) {
-        for (int i = 0; i < aiPlayers.size(); i++) {
-            processAvoidanceForPlayer(aiPlayers, i, deltaTime);
-        }
-    }
-    
-    private void handleAIPlayerAvoidanceParallel(List<GameObject> aiPlayers, float deltaTime) {
-        int threadCount = Runtime.getRuntime().availableProcessors() - 1;
-        threadCount = Math.max(2, threadCount);
-        int batchSize = Math.max(1, aiPlayers.size() / threadCount + 1);
-        
-        List<Future<?>> futures = new ArrayList<>();
-        
-        for (int i = 0; i < aiPlayers.size(); i += batchSize) {
-            final int start = i;
-            final int end = Math.min(i + batchSize, aiPlayers.size());
-            
-            Future<?> future = avoidanceExecutor.submit(() -> {
-                for (int j = start; j < end; j++) {
-                    processAvoidanceForPlayer(aiPlayers, j, deltaTime);
-                }
-            });
-            
-            futures.add(future);
-        }
-        
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+        // 邻居搜索、对称累加和串并行选择都在求解器里
+        avoidance.solve(aiPlayers, deltaTime);
     }
     
-    private void processAvoidanceForPlayer(List<GameObject> aiPlayers, int index, float deltaTime) {
-        GameObject aiPlayer1 = aiPlayers.get(index);
-        TransformComponent transform1 = aiPlayer1.getComponent(TransformComponent.class);
-        PhysicsComponent physics1 = aiPlayer1.getComponent(PhysicsComponent.class);
-        
-        if (transform1 == null || physics1 == null) return;
-        
-        Vector2 pos1 = transform1.getPosition();
-        Vector2 avoidance = new Vector2();
-        
-        for (int j = index + 1; j < aiPlayers.size(); j++) {
-            GameObject aiPlayer2 = aiPlayers.get(j);
-            TransformComponent transform2 = aiPlayer2.getComponent(TransformComponent.class);
-            
-            if (transform2 == null) continue;
-            
-            Vector2 pos2 = transform2.getPosition();
-            float distance = pos1.distance(pos2);
-            
-            if (distance < 80 && distance > 0) {
-                Vector2 direction = pos1.subtract(pos2).normalize();
-                float strength = (80 - distance) / 80.0f;
-                avoidance = avoidance.add(direction.multiply(strength * 50));
-            }
-        }
-        
-        if (avoidance.magnitude() > 0) {
-            Vector2 currentVelocity = physics1.getVelocity();
-            float lerpFactor = 0.15f;
-            Vector2 avoidanceDirection = avoidance.normalize();
-            float avoidanceStrength = Math.min(avoidance.magnitude(), 50f);
-            
-            Vector2 targetVelocity = currentVelocity.add(
-                avoidanceDirection.multiply(avoidanceStrength * deltaTime * 10)
-            );
-            
-            Vector2 newVelocity = new Vector2(
-                currentVelocity.x + (targetVelocity.x - currentVelocity.x) * lerpFactor,
-                currentVelocity.y + (targetVelocity.y - currentVelocity.y) * lerpFactor
-            );
-            
-            float maxSpeed = 150f;
-            if (newVelocity.magnitude() > maxSpeed) {
-                newVelocity = newVelocity.normalize().multiply(maxSpeed);
-            }
-            
-            physics1.setVelocity(newVelocity);
-        }
-    }
     public void checkCollisions() {
         GameObject player = getUserPlayer();
         if (player == null) return;
@@ -278,113 +243,79 @@ public class GameLogic {
             return;
         }
 
-        TransformComponent playerTransform = player.getComponent(TransformComponent.class);
-        if (playerTransform == null) return;
-        Vector2 playerPos = playerTransform.getPosition();
-
-        List<GameObject> aiPlayers = getAIPlayers();
-        for (GameObject aiPlayer : aiPlayers) {
-            HealthComponent aiHealth = aiPlayer.getComponent(HealthComponent.class);
-            TransformComponent aiTransform = aiPlayer.getComponent(TransformComponent.class);
-            if (aiHealth != null && !aiHealth.isDead() && aiTransform != null) {
-                float distance = playerPos.distance(aiTransform.getPosition());
-                if (distance < 30) {
-                    
-                    playerHealth.takeDamage(1); // 碰撞扣血，数值可调整
-                    //aiHealth.takeDamage(10);
-                }
+        // 玩家与敌人的接触对，PLAYER 层位更小，总在前面
+        ContactBuffer contacts = broadphase.getContacts();
+        for (int i = 0; i < contacts.size(); i++) {
+            if (contacts.first(i) != player || contacts.secondLayer(i) != CollisionLayers.ENEMY) continue;
+            HealthComponent aiHealth = contacts.second(i).getComponent(HealthComponent.class);
+            if (aiHealth != null && !aiHealth.isDead()) {
+                playerHealth.takeDamage(1); // 碰撞扣血，数值可调整
+                //aiHealth.takeDamage(10);
             }
         }
 
-        // 再检查玩家是否死
+        // 再检查玩家是否死；失活由清理步骤统一处理
         if (playerHealth.isDead()) {
-            player.setActive(false);
             gameOver = true;
-            
         }
     }
 
     public void checkBulletCollisions() {
-        List<GameObject> bullets = scene.getGameObjects().stream()
-            .filter(obj -> obj.getComponent(BulletComponent.class) != null && obj.isActive())
-            .collect(Collectors.toList());
-
-        for (GameObject bulletObj : bullets) {
-            BulletComponent bullet = bulletObj.getComponent(BulletComponent.class);
-            if (bullet == null) continue;
+        ContactBuffer contacts = broadphase.getContacts();
+        for (int i = 0; i < contacts.size(); i++) {
+            int targetLayer = contacts.firstLayer(i);
+            int bulletLayer = contacts.secondLayer(i);
+            boolean enemyHit = targetLayer == CollisionLayers.ENEMY && bulletLayer == CollisionLayers.PLAYER_BULLET;
+            boolean playerHit = targetLayer == CollisionLayers.PLAYER && bulletLayer == CollisionLayers.ENEMY_BULLET;
+            if (!enemyHit && !playerHit) continue;
 
-            TransformComponent bulletTransform = bulletObj.getComponent(TransformComponent.class);
-            if (bulletTransform == null) continue;
+            GameObject target = contacts.first(i);
+            BulletComponent bullet = contacts.second(i).getComponent(BulletComponent.class);
+            HealthComponent health = target.getComponent(HealthComponent.class);
+            if (bullet == null || bullet.hasHit() || health == null || health.isDead()) continue;
 
-            Vector2 bulletPos = bulletTransform.getPosition();
-
-            GameObject shooter = bullet.getShooter();
-
-            // 玩家被敌人子弹击中
-            if (!shooter.getName().equals("Player")) {
-                GameObject player = getUserPlayer();
-                if (player != null) {
-                    HealthComponent playerHealth = player.getComponent(HealthComponent.class);
-                    Vector2 playerPos = player.getComponent(TransformComponent.class).getPosition();
-                    if (playerHealth != null && !playerHealth.isDead() && bulletPos.distance(playerPos) < 15) {
-                        bullet.onHit(player);
-                    }
-                }
-            }
-            
-            // 敌人被玩家子弹击中
-            if (shooter.getName().equals("Player")) {
-                //System.out.println("shoottttt");
-                for (GameObject enemy : getAIPlayers()) {
-                    HealthComponent aiHealth = enemy.getComponent(HealthComponent.class);
-                    TransformComponent aiTransform = enemy.getComponent(TransformComponent.class);
-                    if (aiHealth != null && !aiHealth.isDead() && aiTransform != null) {
-                        Vector2 enemyPos = aiTransform.getPosition();
-                        if (bulletPos.distance(enemyPos) < 15) {
-                            bullet.onHit(enemy);
-                            System.out.println("Enemy hit! HP left: " + aiHealth.getCurrentHealth());
-                        }
-                    }
-                    if(aiHealth.isDead())
-                    {
-                        enemy.setActive(false);
-                    }
-                }
-            }
+            bullet.onHit(target);
+            if (enemyHit) System.out.println("Enemy hit! HP left: " + health.getCurrentHealth());
         }
     }
     /**
  * 清理死亡或无效对象（AI、子弹、Inactive 对象）
  */
     public void cleanupDeadObjects() {
-        List<GameObject> objects = scene.getGameObjects();
+        // 0. 玩家死亡后失活
+        GameObject player = scene.findFirstByTag(Tags.PLAYER);
+        if (player != null && player.isActive()) {
+            HealthComponent hp = player.getComponent(HealthComponent.class);
+            if (hp != null && hp.isDead()) scene.destroyGameObject(player);
+        }
 
-        // 1. 清除死掉的 AIPlayer
-        objects.removeIf(obj -> {
-            if (obj.getName().equals("AIPlayer")) {
-                HealthComponent hp = obj.getComponent(HealthComponent.class);
-                return hp != null && hp.isDead();
+        // 1. 清除死掉的 AIPlayer（碰撞系统只扣血，失活在这里统一做）
+        List<GameObject> enemies = scene.findByTag(Tags.ENEMY);
+        for (int i = 0; i < enemies.size(); i++) {
+            GameObject obj = enemies.get(i);
+            HealthComponent hp = obj.getComponent(HealthComponent.class);
+            if (hp != null && hp.isDead()) {
+                scene.destroyGameObject(obj);
+                aiStates.remove(obj);
             }
-            return false;
-        });
-
-        
+        }
 
         // 2. 清除飞出屏幕的子弹
-        objects.removeIf(obj -> {
-            BulletComponent bullet = obj.getComponent(BulletComponent.class);
-            if (bullet == null) return false;
-
+        int w = gameEngine.getRenderer().getWidth();
+        int h = gameEngine.getRenderer().getHeight();
+        List<BulletComponent> bullets = scene.getComponents(BulletComponent.class);
+        for (int i = 0; i < bullets.size(); i++) {
+            GameObject obj = bullets.get(i).getOwner();
             TransformComponent t = obj.getComponent(TransformComponent.class);
-            if (t == null) return true; // 没 Transform 直接删
-
-            Vector2 pos = t.getPosition();
-            int w = gameEngine.getRenderer().getWidth();
-            int h = gameEngine.getRenderer().getHeight();
+            if (t == null) { // 没 Transform 直接删
+                scene.removeGameObject(obj);
+                continue;
+            }
 
             // 超出屏幕 50 像素就清除（避免卡边）
-            return pos.x < -50 || pos.x > w + 50 || pos.y < -50 || pos.y > h + 50;
-        });
+            float x = t.getX(), y = t.getY();
+            if (x < -50 || x > w + 50 || y < -50 || y > h + 50) scene.removeGameObject(obj);
+        }
     }
 
 
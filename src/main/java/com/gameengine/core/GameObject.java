@@ -7,9 +7,31 @@ public class GameObject {
     protected boolean active;
     protected String name;
     protected final List<Component<?>> components;
+    // 以组件类型 ID 为下标的槽位和签名位掩码
+    protected Component<?>[] slots;
+    protected long signature;
     protected Scene scene; // 新增：所属场景
+
+    // 场景分配的代际句柄，未加入场景时为 EntityHandle.NONE
+    long handle = EntityHandle.NONE;
+
+    // 在场景密集数组中的下标，由 Scene 维护，不在场景中时为 -1
+    private int sceneIndex = -1;
+
+    // 所属对象池，归还后置空以防重复归还
+    EntityPool pool;
+
+    // 原型存储中的位置，由 EntityStorage/Archetype 维护
+    EntityStorage storage;
+    Archetype archetype;
+    int archetypeRow = -1;
+    
+    // 未声明线程封闭的组件个数
+    private int unconfinedComponents;
     
     private final Map<String, Object> properties = new HashMap<>();
+    private final List<String> tags = new ArrayList<>(2);
+    private final List<String> tagsView = Collections.unmodifiableList(tags);
 
     public void setProperty(String key, Object value) {
         properties.put(key, value);
@@ -24,6 +46,8 @@ public class GameObject {
         this.active = true;
         this.name = "GameObject";
         this.components = new ArrayList<>();
+        this.slots = new Component<?>[8];
+        this.signature = 0L;
         this.scene = null;
     }
     
@@ -51,6 +75,35 @@ public class GameObject {
     }
     
     public void initialize() { }
+
+    // 由对象池在回收时调用：恢复激活状态并重置全部组件
+    public void reset() {
+        this.active = true;
+        for (int i = 0; i < components.size(); i++) {
+            components.get(i).reset();
+        }
+    }
+
+    // 若来自对象池则归还，返回是否归还成功
+    public boolean returnToPool() {
+        EntityPool p = pool;
+        if (p == null) return false;
+        pool = null;
+        p.release(this);
+        return true;
+    }
+
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    public int getSceneIndex() {
+        return sceneIndex;
+    }
+
+    public void setSceneIndex(int sceneIndex) {
+        this.sceneIndex = sceneIndex;
+    }
     
     public void destroy() {
         this.active = false;
@@ -58,36 +111,88 @@ public class GameObject {
             component.destroy();
         }
         components.clear();
+        Arrays.fill(slots, null);
+        signature = 0L;
     }
     
     public <T extends Component<T>> T addComponent(T component) {
         component.setOwner(this);
         components.add(component);
+        if (!component.isThreadConfined()) unconfinedComponents++;
+        int id = component.getTypeId();
+        if (id >= slots.length) slots = Arrays.copyOf(slots, Math.max(id + 1, slots.length * 2));
+        if (slots[id] == null) slots[id] = component;
+        signature |= 1L << id;
         component.initialize();
+        if (storage != null) {
+            storage.migrate(this);
+            if (scene != null) scene.onComponentAdded(this, component);
+        }
         return component;
     }
     
-    @SuppressWarnings("unchecked")
-    public <T extends Component<T>> T getComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return (T) component;
+    /**
+     * 移除某类型的组件并返回它，没有则返回 null。对象已在场景中时会迁移原型，
+     * 只能在主线程调用；工作线程请用 CommandBuffer.removeComponent。
+     */
+    public <T extends Component<T>> T removeComponent(Class<T> componentType) {
+        T component = getComponent(componentType);
+        if (component == null) return null;
+        int id = component.getTypeId();
+        components.remove(component);
+        if (!component.isThreadConfined()) unconfinedComponents--;
+        // 同类型还有其他组件时顶替槽位，否则清除签名位
+        slots[id] = null;
+        for (Component<?> other : components) {
+            if (other.getTypeId() == id) {
+                slots[id] = other;
+                break;
             }
         }
-        return null;
+        if (slots[id] == null) signature &= ~(1L << id);
+        if (storage != null) {
+            storage.migrate(this);
+            if (scene != null) scene.onComponentRemoved(this, component);
+        }
+        return component;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> T getComponent(Class<T> componentType) {
+        int id = ComponentTypes.idOf(componentType);
+        return id < slots.length ? (T) slots[id] : null;
     }
     
     public <T extends Component<T>> boolean hasComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return true;
-            }
-        }
-        return false;
+        return (signature & ComponentTypes.bitOf(componentType)) != 0;
+    }
+
+    public long getSignature() {
+        return signature;
+    }
+
+    // 按类型 ID 取组件，供已缓存 ID 的热循环使用
+    public Component<?> getComponent(int typeId) {
+        return typeId < slots.length ? slots[typeId] : null;
+    }
+    
+    /**
+     * 为 true 时 update 可以在工作线程上与其他对象并行执行。
+     * 默认只有未重写 update 的 GameObject 且全部组件线程封闭时成立；
+     * 子类确认自己的 update 只更新组件时可以重写为 componentsThreadConfined()。
+     */
+    public boolean isThreadConfined() {
+        return getClass() == GameObject.class && componentsThreadConfined();
     }
     
+    protected final boolean componentsThreadConfined() {
+        return unconfinedComponents == 0;
+    }
+    
+    // 按下标遍历，每帧调用不创建迭代器
     public void updateComponents(float deltaTime) {
-        for (Component<?> component : components) {
+        for (int i = 0; i < components.size(); i++) {
+            Component<?> component = components.get(i);
             if (component.isEnabled()) {
                 component.update(deltaTime);
             }
@@ -95,7 +200,8 @@ public class GameObject {
     }
     
     public void renderComponents() {
-        for (Component<?> component : components) {
+        for (int i = 0; i < components.size(); i++) {
+            Component<?> component = components.get(i);
             if (component.isEnabled()) {
                 component.render();
             }
@@ -113,6 +219,34 @@ public class GameObject {
     public String getName() {
         return name;
     }
+
+    // 标签用于场景的角色索引（见 Tags）
+    public GameObject addTag(String tag) {
+        if (tags.contains(tag)) return this;
+        tags.add(tag);
+        if (storage != null && scene != null) scene.onTagAdded(this, tag);
+        return this;
+    }
+
+    public boolean hasTag(String tag) {
+        return tags.contains(tag);
+    }
+
+    public List<String> getTags() {
+        return tagsView;
+    }
+
+    public long getHandle() {
+        return handle;
+    }
+
+    public Archetype getArchetype() {
+        return archetype;
+    }
+
+    public int getArchetypeRow() {
+        return archetypeRow;
+    }
     
     public void setName(String name) {
         this.name = name;
@@ -0,0 +1,50 @@
+package com.gameengine.core;
+
+/**
+ * 每个固定步执行一次的系统。系统声明自己读写的组件类型（也可以是其他共享状态的类型），
+ * {@link SystemScheduler} 据此判断哪些系统可以同时运行。
+ * 约定 GameObject.class 表示对象的激活状态。
+ */
+public interface GameSystem {
+    String getName();
+
+    Class<?>[] reads();
+
+    Class<?>[] writes();
+
+    void update(float deltaTime);
+
+    // 独占系统（例如会增删对象的系统）不与任何系统并行，前后系统都要等它
+    default boolean isExclusive() {
+        return false;
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    // 系统的更新函数
+    interface Update {
+        void update(float deltaTime);
+    }
+
+    static GameSystem of(String name, Class<?>[] reads, Class<?>[] writes, Update update) {
+        return new GameSystem() {
+            @Override public String getName() { return name; }
+            @Override public Class<?>[] reads() { return reads; }
+            @Override public Class<?>[] writes() { return writes; }
+            @Override public void update(float deltaTime) { update.update(deltaTime); }
+        };
+    }
+
+    static GameSystem exclusive(String name, Update update) {
+        return new GameSystem() {
+            @Override public String getName() { return name; }
+            private final Class<?>[] none = new Class<?>[0];
+            @Override public Class<?>[] reads() { return none; }
+            @Override public Class<?>[] writes() { return none; }
+            @Override public void update(float deltaTime) { update.update(deltaTime); }
+            @Override public boolean isExclusive() { return true; }
+        };
+    }
+}
@@ -0,0 +1,260 @@
+package com.gameengine.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 引擎级任务系统：一个工作窃取线程池，由 GameEngine 创建和关闭，
+ * 所有场景和系统共用，不随场景切换重建。
+ */
+public class JobSystem {
+    // 对 [start, end) 区间执行的任务体
+    public interface RangeTask {
+        void run(int start, int end);
+    }
+
+    // 等待任务时先自旋的次数，约几十微秒，之后改为让出 CPU
+    private static final int SPIN_LIMIT = 1 << 10;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final AtomicLong tasksRun = new AtomicLong();
+    private final AtomicLong inlineRanges = new AtomicLong();
+    // 本帧提交、必须在下一步修改场景前完成的任务
+    private final TaskGroup frameTasks;
+    // 空闲的 parallelFor 状态，嵌套或并发调用各取一个，用完放回，稳定后不再分配
+    private final ArrayDeque<RangeJob> idleJobs = new ArrayDeque<>();
+
+    public JobSystem() {
+        this(defaultParallelism());
+    }
+
+    public JobSystem(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = new ForkJoinPool(this.parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("job-worker-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        this.frameTasks = new TaskGroup();
+    }
+
+    // 留一个核给主线程
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * 把 [start, end) 切成 grain 大小的块并行执行，调用线程也参与，返回时全部完成。
+     * 区间不超过 grain 或只有一个工作线程时直接在调用线程上执行。
+     * 各块从共享计数器领取，执行顺序不定，任务体只能写自己那段。
+     */
+    public void parallelFor(int start, int end, int grain, RangeTask body) {
+        if (end <= start) return;
+        grain = Math.max(1, grain);
+        if (end - start <= grain || parallelism == 1) {
+            inlineRanges.incrementAndGet();
+            body.run(start, end);
+            return;
+        }
+        RangeJob job = acquireJob();
+        try {
+            job.run(start, end, grain, body);
+        } finally {
+            releaseJob(job);
+        }
+    }
+
+    // 按目标批数计算 grain，至少为 minGrain
+    public int grainFor(int count, int minGrain) {
+        return Math.max(minGrain, (count + parallelism * 4 - 1) / (parallelism * 4));
+    }
+
+    public TaskGroup newGroup() {
+        return new TaskGroup();
+    }
+
+    // 提交到帧任务组，GameEngine 在下一步开始前等待它们完成
+    public void submitForFrame(Runnable task) {
+        frameTasks.fork(task);
+    }
+
+    public void awaitFrameTasks() {
+        frameTasks.join();
+    }
+
+    public Executor executor() {
+        return pool;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // 工作队列与外部提交队列中尚未执行的任务数
+    public long getQueueDepth() {
+        return pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+    }
+
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    public long getTasksRun() {
+        return tasksRun.get();
+    }
+
+    public void shutdown() {
+        awaitFrameTasks();
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JobSystem[workers=" + parallelism + " tasks=" + tasksRun.get() + " inline=" + inlineRanges.get()
+            + " steals=" + pool.getStealCount() + " queued=" + getQueueDepth() + "]";
+    }
+
+    /**
+     * 等待复用的任务结束：还在本线程队列里的直接在这里执行，否则先自旋，再让出 CPU。
+     * 不用 join：JDK 17 的 join 需要阻塞时每次都分配一个等待节点。
+     */
+    static void awaitDone(ForkJoinTask<?> task) {
+        if (task.isDone()) return;
+        if (task.tryUnfork()) {
+            task.quietlyInvoke();
+            return;
+        }
+        for (int spins = 0; !task.isDone(); spins++) {
+            if (spins < SPIN_LIMIT) Thread.onSpinWait();
+            else Thread.yield();
+        }
+    }
+
+    private RangeJob acquireJob() {
+        synchronized (idleJobs) {
+            RangeJob job = idleJobs.poll();
+            if (job != null) return job;
+        }
+        return new RangeJob();
+    }
+
+    private void releaseJob(RangeJob job) {
+        synchronized (idleJobs) {
+            idleJobs.push(job);
+        }
+    }
+
+    // 一次 parallelFor 的共享状态；helper 任务完成后 reinitialize，下次调用接着用
+    private final class RangeJob {
+        private final RangeHelper[] helpers = new RangeHelper[parallelism - 1];
+        private final AtomicInteger next = new AtomicInteger();
+        private int start, end, grain, chunks;
+        private RangeTask body;
+
+        RangeJob() {
+            for (int h = 0; h < helpers.length; h++) helpers[h] = new RangeHelper(this);
+        }
+
+        void run(int start, int end, int grain, RangeTask body) {
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+            this.body = body;
+            this.chunks = (end - start + grain - 1) / grain;
+            next.set(0);
+            int forked = Math.min(helpers.length, chunks - 1);
+            boolean inPool = ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool;
+            for (int h = 0; h < forked; h++) {
+                if (inPool) helpers[h].fork();
+                else pool.execute(helpers[h]);
+            }
+            Throwable failure = null;
+            try {
+                runChunks();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            // 等所有 helper 结束才能复用；还在本线程队列里的 helper 由本线程执行
+            for (int h = 0; h < forked; h++) {
+                RangeHelper helper = helpers[h];
+                awaitDone(helper);
+                if (failure == null && helper.isCompletedAbnormally()) failure = helper.getException();
+                helper.reinitialize();
+            }
+            this.body = null;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+        }
+
+        void runChunks() {
+            int c;
+            while ((c = next.getAndIncrement()) < chunks) {
+                int from = start + c * grain;
+                tasksRun.incrementAndGet();
+                body.run(from, Math.min(end, from + grain));
+            }
+        }
+    }
+
+    private static final class RangeHelper extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient RangeJob job;
+
+        RangeHelper(RangeJob job) {
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            job.runChunks();
+        }
+    }
+
+    /**
+     * 一组一起等待的任务。join 之后可以继续复用。
+     */
+    public final class TaskGroup implements AutoCloseable {
+        private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        public synchronized void fork(Runnable task) {
+            tasks.add(pool.submit(() -> {
+                tasksRun.incrementAndGet();
+                task.run();
+            }));
+        }
+
+        public void join() {
+            List<ForkJoinTask<?>> snapshot;
+            synchronized (this) {
+                if (tasks.isEmpty()) return;
+                snapshot = new ArrayList<>(tasks);
+                tasks.clear();
+            }
+            for (ForkJoinTask<?> task : snapshot) task.join();
+        }
+
+        @Override
+        public void close() {
+            join();
+        }
+    }
+}
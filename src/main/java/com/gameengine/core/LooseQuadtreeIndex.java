@@ -0,0 +1,200 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 松散四叉树：每个节点的松散边界是自身格子向四周各扩半个格子，
+ * 条目按尺寸直接算出所在层、按中心算出所在节点，插入和移动都是 O(1)，不需要自顶向下比较。
+ * 节点按层存放在连续数组里，每个节点记录子树中的条目数，查询时跳过空子树。
+ * 适合大小差别大的场景（少量大物体加大量小子弹）。世界范围外或比整个世界还大的条目放在单独的列表里。
+ */
+public class LooseQuadtreeIndex extends AbstractSpatialIndex {
+    private static final int MAX_DEPTH = 8;
+    private static final int OUTSIDE = -1;
+
+    private final float originX, originY, size;
+    private final int maxDepth;
+    private final int[] levelOffset;
+    private final float[] cellAt;
+
+    // 每个节点的条目链表头与子树条目数
+    private final int[] head;
+    private final int[] subtree;
+    private int outsideHead = -1;
+
+    // 每个槽位所在的节点、层与链表指针
+    private int[] nodeOf = new int[64], depthOf = new int[64];
+    private int[] next = new int[64], prev = new int[64];
+
+    // place 算出的层，link 时才写入 depthOf，移动时 unlink 仍能用旧值
+    private int placedDepth;
+
+    public LooseQuadtreeIndex(float originX, float originY, float size, int maxDepth) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if (maxDepth < 0 || maxDepth > MAX_DEPTH) throw new IllegalArgumentException("maxDepth must be in [0, " + MAX_DEPTH + "]");
+        this.originX = originX;
+        this.originY = originY;
+        this.size = size;
+        this.maxDepth = maxDepth;
+        this.levelOffset = new int[maxDepth + 2];
+        this.cellAt = new float[maxDepth + 1];
+        for (int d = 0; d <= maxDepth; d++) {
+            levelOffset[d + 1] = levelOffset[d] + (1 << (2 * d));
+            cellAt[d] = size / (1 << d);
+        }
+        int nodes = levelOffset[maxDepth + 1];
+        this.head = new int[nodes];
+        this.subtree = new int[nodes];
+        Arrays.fill(head, -1);
+    }
+
+    @Override
+    public String getName() {
+        return "LooseQuadtree(" + size + ", depth " + maxDepth + ")";
+    }
+
+    @Override
+    protected void onInsert(int slot) {
+        link(slot, place(slot));
+    }
+
+    @Override
+    protected void onMove(int slot) {
+        int node = place(slot);
+        if (node == nodeOf[slot]) return;
+        unlink(slot);
+        link(slot, node);
+    }
+
+    @Override
+    protected void onRemove(int slot) {
+        unlink(slot);
+    }
+
+    @Override
+    protected void onClear() {
+        Arrays.fill(head, -1);
+        Arrays.fill(subtree, 0);
+        outsideHead = -1;
+    }
+
+    @Override
+    protected void collect(Query q, float minX, float minY, float maxX, float maxY) {
+        for (int s = outsideHead; s >= 0; s = next[s]) candidate(q, s);
+        int[] stack = q.stack(4 * (maxDepth + 1));
+        int top = push(stack, 0, 0, 0);
+        while (top > 0) {
+            int entry = stack[--top];
+            int node = entry >>> 4, d = entry & 15;
+            if (subtree[node] == 0) continue;
+            float cell = cellAt[d];
+            int local = node - levelOffset[d];
+            float x0 = originX + (local & ((1 << d) - 1)) * cell - cell * 0.5f;
+            float y0 = originY + (local >> d) * cell - cell * 0.5f;
+            if (x0 > maxX || y0 > maxY || x0 + 2 * cell < minX || y0 + 2 * cell < minY) continue;
+            for (int s = head[node]; s >= 0; s = next[s]) candidate(q, s);
+            if (d < maxDepth) top = pushChildren(stack, top, local, d);
+        }
+    }
+
+    @Override
+    protected void traceRay(Query q) {
+        for (int s = outsideHead; s >= 0; s = next[s]) rayCandidate(q, s);
+        int[] stack = q.stack(4 * (maxDepth + 1));
+        int top = push(stack, 0, 0, 0);
+        while (top > 0) {
+            int entry = stack[--top];
+            int node = entry >>> 4, d = entry & 15;
+            if (subtree[node] == 0) continue;
+            float cell = cellAt[d];
+            int local = node - levelOffset[d];
+            float x0 = originX + (local & ((1 << d) - 1)) * cell - cell * 0.5f;
+            float y0 = originY + (local >> d) * cell - cell * 0.5f;
+            if (rayEnter(q, x0, y0, x0 + 2 * cell, y0 + 2 * cell) < 0) continue;
+            for (int s = head[node]; s >= 0; s = next[s]) rayCandidate(q, s);
+            if (d < maxDepth) top = pushChildren(stack, top, local, d);
+        }
+    }
+
+    @Override
+    protected void growSlots(int capacity) {
+        nodeOf = Arrays.copyOf(nodeOf, capacity);
+        depthOf = Arrays.copyOf(depthOf, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+
+    // 尺寸不超过格子边长的最深一层，中心所在的格子
+    private int place(int slot) {
+        float extent = Math.max(maxX[slot] - minX[slot], maxY[slot] - minY[slot]);
+        if (extent > size) return OUTSIDE;
+        int d = maxDepth;
+        while (d > 0 && cellAt[d] < extent) d--;
+        float cx = (minX[slot] + maxX[slot]) * 0.5f - originX;
+        float cy = (minY[slot] + maxY[slot]) * 0.5f - originY;
+        if (!(cx >= 0 && cy >= 0 && cx < size && cy < size)) return OUTSIDE;
+        int last = (1 << d) - 1;
+        int ix = Math.min((int) (cx / cellAt[d]), last);
+        int iy = Math.min((int) (cy / cellAt[d]), last);
+        placedDepth = d;
+        return levelOffset[d] + (iy << d) + ix;
+    }
+
+    private void link(int slot, int node) {
+        nodeOf[slot] = node;
+        prev[slot] = -1;
+        if (node == OUTSIDE) {
+            next[slot] = outsideHead;
+            if (outsideHead >= 0) prev[outsideHead] = slot;
+            outsideHead = slot;
+            return;
+        }
+        depthOf[slot] = placedDepth;
+        next[slot] = head[node];
+        if (head[node] >= 0) prev[head[node]] = slot;
+        head[node] = slot;
+        adjustSubtree(node, placedDepth, 1);
+    }
+
+    private void unlink(int slot) {
+        int node = nodeOf[slot];
+        int p = prev[slot], n = next[slot];
+        if (n >= 0) prev[n] = p;
+        if (p >= 0) {
+            next[p] = n;
+        } else if (node == OUTSIDE) {
+            outsideHead = n;
+        } else {
+            head[node] = n;
+        }
+        if (node != OUTSIDE) adjustSubtree(node, depthOf[slot], -1);
+    }
+
+    // 从节点一直更新到根
+    private void adjustSubtree(int node, int depth, int delta) {
+        int local = node - levelOffset[depth];
+        int ix = local & ((1 << depth) - 1), iy = local >> depth;
+        for (int d = depth; d >= 0; d--) {
+            subtree[levelOffset[d] + (iy << d) + ix] += delta;
+            ix >>= 1;
+            iy >>= 1;
+        }
+    }
+
+    // 栈元素把节点号和层打包在一起：低 4 位为层，其余为节点号
+    private static int push(int[] stack, int top, int node, int depth) {
+        stack[top] = node << 4 | depth;
+        return top + 1;
+    }
+
+    // 深度优先每层最多压入 4 个，栈长 4 * (maxDepth + 1) 足够
+    private int pushChildren(int[] stack, int top, int local, int d) {
+        int ix = (local & ((1 << d) - 1)) << 1, iy = (local >> d) << 1;
+        int base = levelOffset[d + 1];
+        int child = d + 1;
+        top = push(stack, top, base + (iy << child) + ix, child);
+        top = push(stack, top, base + (iy << child) + ix + 1, child);
+        top = push(stack, top, base + ((iy + 1) << child) + ix, child);
+        return push(stack, top, base + ((iy + 1) << child) + ix + 1, child);
+    }
+}
@@ -0,0 +1,82 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 通用对象池：归还时调用重置钩子，支持预热并统计高水位。
+ * 非线程安全，只在主线程使用。
+ */
+public class ObjectPool<T> {
+    private final String name;
+    private final Supplier<T> factory;
+    private final Consumer<T> resetter;
+    private final List<T> free = new ArrayList<>();
+
+    private int created;
+    private int inUse;
+    private int highWaterMark;
+    private long acquireCount;
+    private long reuseCount;
+
+    public ObjectPool(String name, Supplier<T> factory, Consumer<T> resetter) {
+        this.name = name;
+        this.factory = factory;
+        this.resetter = resetter;
+    }
+
+    public ObjectPool(String name, Supplier<T> factory) {
+        this(name, factory, null);
+    }
+
+    // 预先创建对象，避免第一波使用时集中分配
+    public void prewarm(int count) {
+        for (int i = free.size(); i < count; i++) {
+            free.add(factory.get());
+            created++;
+        }
+    }
+
+    public T acquire() {
+        T obj;
+        if (free.isEmpty()) {
+            obj = factory.get();
+            created++;
+        } else {
+            obj = free.remove(free.size() - 1);
+            reuseCount++;
+        }
+        acquireCount++;
+        inUse++;
+        if (inUse > highWaterMark) highWaterMark = inUse;
+        return obj;
+    }
+
+    public void release(T obj) {
+        if (obj == null) return;
+        if (resetter != null) resetter.accept(obj);
+        free.add(obj);
+        inUse = Math.max(0, inUse - 1);
+    }
+
+    public void clear() {
+        free.clear();
+        inUse = 0;
+    }
+
+    public String getName() { return name; }
+    public int getCreatedCount() { return created; }
+    public int getInUseCount() { return inUse; }
+    public int getAvailableCount() { return free.size(); }
+    public int getHighWaterMark() { return highWaterMark; }
+    public long getAcquireCount() { return acquireCount; }
+    public long getReuseCount() { return reuseCount; }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[%s] created=%d inUse=%d free=%d highWater=%d reuse=%d/%d",
+            name, created, inUse, free.size(), highWaterMark, reuseCount, acquireCount);
+    }
+}
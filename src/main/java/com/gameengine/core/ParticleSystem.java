@@ -5,11 +5,13 @@ import com.gameengine.math.Vector2;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Iterator;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class ParticleSystem {
     private List<Particle> particles;
-    private Random random;
+    // 死亡粒子回收复用，稳态下不再分配
+    private final List<Particle> freeParticles = new ArrayList<>();
+    private SplittableRandom random;
     private IRenderer renderer;
     private float spawnRate;
     private float timeSinceLastSpawn;
@@ -26,9 +28,19 @@ public class ParticleSystem {
         private float size;
         private float r, g, b, a;
         
+        public Particle() {
+            this.position = new Vector2();
+            this.velocity = new Vector2();
+        }
+        
         public Particle(Vector2 position, Vector2 velocity, float life, float size, float r, float g, float b) {
-            this.position = new Vector2(position);
-            this.velocity = new Vector2(velocity);
+            this();
+            init(position.x, position.y, velocity.x, velocity.y, life, size, r, g, b);
+        }
+        
+        void init(float px, float py, float vx, float vy, float life, float size, float r, float g, float b) {
+            this.position.set(px, py);
+            this.velocity.set(vx, vy);
             this.maxLife = life;
             this.life = life;
             this.size = size;
@@ -39,12 +51,12 @@ public class ParticleSystem {
         }
         
         public void update(float deltaTime) {
-            position = position.add(velocity.multiply(deltaTime));
+            position.addLocal(velocity.x * deltaTime, velocity.y * deltaTime);
             life -= deltaTime;
             
             if (life > 0) {
                 a = life / maxLife;
-                velocity = velocity.multiply(0.98f);
+                velocity.scaleLocal(0.98f);
             }
         }
         
@@ -145,8 +157,13 @@ public class ParticleSystem {
     }
     
     public ParticleSystem(IRenderer renderer, Vector2 position, Config config) {
+        this(renderer, position, config, new SplittableRandom());
+    }
+    
+    // 确定性模式下由调用方传入从会话种子派生的随机流
+    public ParticleSystem(IRenderer renderer, Vector2 position, Config config, SplittableRandom random) {
         this.particles = new ArrayList<>();
-        this.random = new Random();
+        this.random = random;
         this.renderer = renderer;
         this.position = new Vector2(position);
         this.config = config;
@@ -165,7 +182,7 @@ public class ParticleSystem {
     
     public void setPosition(Vector2 position) {
         if (position != null) {
-            this.position = new Vector2(position);
+            this.position.set(position);
         }
     }
     
@@ -184,6 +201,7 @@ public class ParticleSystem {
             particle.update(deltaTime);
             if (!particle.isAlive()) {
                 iterator.remove();
+                freeParticles.add(particle);
             }
         }
     }
@@ -193,10 +211,8 @@ public class ParticleSystem {
         
         float angle = (float) (random.nextFloat() * 2.0 * Math.PI);
         float speed = config.speedMin + random.nextFloat() * (config.speedMax - config.speedMin);
-        Vector2 velocity = new Vector2(
-            (float) (Math.cos(angle) * speed),
-            (float) (Math.sin(angle) * speed)
-        );
+        float vx = (float) (Math.cos(angle) * speed);
+        float vy = (float) (Math.sin(angle) * speed);
         
         float life = config.lifeMin + random.nextFloat() * (config.lifeMax - config.lifeMin);
         float size = config.sizeMin + random.nextFloat() * (config.sizeMax - config.sizeMin);
@@ -212,10 +228,15 @@ public class ParticleSystem {
             g = config.g + random.nextFloat() * 0.2f;
         }
         
-        Particle particle = new Particle(new Vector2(position), velocity, life, size, r, g, b);
+        Particle particle = obtainParticle();
+        particle.init(position.x, position.y, vx, vy, life, size, r, g, b);
         particles.add(particle);
     }
     
+    private Particle obtainParticle() {
+        return freeParticles.isEmpty() ? new Particle() : freeParticles.remove(freeParticles.size() - 1);
+    }
+    
     public void setSpawnRate(float rate) {
         this.spawnRate = rate;
     }
@@ -223,8 +244,9 @@ public class ParticleSystem {
     public void render() {
         if (renderer == null) return;
         
-        for (Particle particle : particles) {
-            Vector2 pos = particle.getPosition();
+        for (int i = 0; i < particles.size(); i++) {
+            Particle particle = particles.get(i);
+            Vector2 pos = particle.position;
             float size = particle.getSize();
             
             float r = Math.min(1.0f, Math.max(0.0f, particle.getR()));
@@ -252,10 +274,8 @@ public class ParticleSystem {
         for (int i = 0; i < count; i++) {
             float angle = (float) (random.nextFloat() * 2.0 * Math.PI);
             float speed = config.burstSpeedMin + random.nextFloat() * (config.burstSpeedMax - config.burstSpeedMin);
-            Vector2 velocity = new Vector2(
-                (float) (Math.cos(angle) * speed),
-                (float) (Math.sin(angle) * speed)
-            );
+            float vx = (float) (Math.cos(angle) * speed);
+            float vy = (float) (Math.sin(angle) * speed);
             
             float life = config.burstLifeMin + random.nextFloat() * (config.burstLifeMax - config.burstLifeMin);
             float size = config.burstSizeMin + random.nextFloat() * (config.burstSizeMax - config.burstSizeMin);
@@ -264,7 +284,8 @@ public class ParticleSystem {
             float g = config.burstGMin + random.nextFloat() * (config.burstGMax - config.burstGMin);
             float b = config.burstB;
             
-            Particle particle = new Particle(new Vector2(position), velocity, life, size, r, g, b);
+            Particle particle = obtainParticle();
+            particle.init(position.x, position.y, vx, vy, life, size, r, g, b);
             particles.add(particle);
         }
     }
@@ -274,6 +295,7 @@ public class ParticleSystem {
     }
     
     public void clear() {
+        freeParticles.addAll(particles);
         particles.clear();
     }
 }
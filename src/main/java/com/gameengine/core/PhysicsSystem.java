@@ -3,131 +3,390 @@ package com.gameengine.core;
 import com.gameengine.components.BulletComponent;
 import com.gameengine.components.PhysicsComponent;
 import com.gameengine.components.TransformComponent;
-import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class PhysicsSystem {
+/**
+ * 按列积分所有物理体，并让静止的物体休眠：速度低于 sleepSpeed 持续 timeToSleep 秒后
+ * 速度清零、启用列置 0，移出醒着的行段。施力、冲量、非零速度会唤醒物体；
+ * 宽相的接触对把物体连成岛，岛内有醒着的物体就整岛唤醒，全部静止够久才一起入睡。
+ * <p>
+ * 每个原型记下醒着的行组成的连续段，积分与休眠计时只访问这些行。
+ * 启用列有变化（入睡、唤醒、停用、增删行）的原型在下一步开始时重扫一遍启用列重建行段，
+ * 这次扫描与行数成正比，但只读一列，比逐行积分便宜得多；启用列不变时休眠的行完全不被访问。
+ */
+public class PhysicsSystem implements GameSystem {
     private Scene scene;
-    private ExecutorService physicsExecutor;
+    // 引擎共享的任务系统，为 null 时串行
+    private final JobSystem jobs;
     private int screenWidth;
     private int screenHeight;
+    private final EntityQuery bodies;
+    // 积分内核：位置、速度、加速度等全部按列打包，逐组或逐行处理
+    private PhysicsKernel kernel;
+    // 每个任务至少处理的行数，太小时调度开销超过积分本身
+    private static final int MIN_GRAIN = 256;
+    // 醒着的行段的最大长度，长段切开后才能分给多个任务
+    private static final int MAX_RUN = 256;
+    // 调度器每步都会查询读写声明，返回常量避免分配
+    private static final Class<?>[] READS = { Broadphase.class };
+    private static final Class<?>[] WRITES = { TransformComponent.class, PhysicsComponent.class, GameObject.class };
+
+    // 休眠参数与统计
+    private boolean sleepingEnabled = true;
+    private float sleepSpeed = 2f;
+    private float timeToSleep = 0.5f;
+    private Broadphase broadphase;
+    private final AtomicInteger activeCounter = new AtomicInteger();
+    private final AtomicInteger sleepingCounter = new AtomicInteger();
+    private int activeBodies;
+    private int sleepingBodies;
+    private int islandCount;
+    // 按 bodies.archetypes() 的顺序，每个原型一份醒着的行段
+    private ActiveRows[] activeRows = new ActiveRows[0];
+
+    // 接触岛：按句柄槽位的并查集，stamp 标记本步出现过的槽位，不必每步清空
+    private int[] parent = new int[64];
+    private int[] stamps = new int[64];
+    private boolean[] islandAwake = new boolean[64];
+    private float[] islandTime = new float[64];
+    private GameObject[] memberOf = new GameObject[64];
+    private int[] members = new int[64];
+    private int memberCount;
+    private int stamp;
+
+    // 当前原型的积分参数；任务体读这些字段，不必每个原型新建捕获参数的 lambda
+    private Archetype stepArchetype;
+    private ActiveRows stepRows;
+    private float stepDelta;
+    private boolean stepBullets;
+    private long stepTick;
+    private final JobSystem.RangeTask integrateRuns = (first, last) -> {
+        for (int r = first; r < last; r++) {
+            integrate(stepArchetype, stepRows.start(r), stepRows.end(r), stepDelta, stepBullets, stepTick);
+        }
+    };
 
     public PhysicsSystem(Scene scene) {
-        this(scene, 1920, 1080);
+        this(scene, 1920, 1080, null);
     }
 
-    public PhysicsSystem(Scene scene, int screenWidth, int screenHeight) {
+    public PhysicsSystem(Scene scene, int screenWidth, int screenHeight, JobSystem jobs) {
         this.scene = scene;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
+        this.bodies = scene.getStorage().query(TransformComponent.class, PhysicsComponent.class);
+        this.jobs = jobs;
+        this.kernel = PhysicsKernel.create();
+    }
 
-        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        this.physicsExecutor = Executors.newFixedThreadPool(threadCount);
+    public PhysicsKernel getKernel() {
+        return kernel;
     }
 
-    public void update(float deltaTime) {
-        List<PhysicsComponent> physicsComponents = scene.getComponents(PhysicsComponent.class);
-        if (physicsComponents.isEmpty()) return;
-
-        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        int batchSize = Math.max(1, physicsComponents.size() / threadCount + 1);
-
-        List<Future<?>> futures = new ArrayList<>();
-        for (int i = 0; i < physicsComponents.size(); i += batchSize) {
-            final int start = i;
-            final int end = Math.min(i + batchSize, physicsComponents.size());
-
-            futures.add(physicsExecutor.submit(() -> {
-                for (int j = start; j < end; j++) {
-                    PhysicsComponent physics = physicsComponents.get(j);
-                    if (physics.isEnabled()) {
-                        updatePhysics(physics, deltaTime);
-                        handleBoundary(physics);
-                    }
-                }
-            }));
-        }
+    // 切换积分实现，例如对比标量与向量内核
+    public void setKernel(PhysicsKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public boolean isSleepingEnabled() {
+        return sleepingEnabled;
+    }
 
-        for (Future<?> future : futures) {
-            try { future.get(); } catch (Exception e) { e.printStackTrace(); }
+    // 关闭时唤醒所有休眠的物体
+    public void setSleepingEnabled(boolean sleepingEnabled) {
+        this.sleepingEnabled = sleepingEnabled;
+        if (sleepingEnabled) return;
+        List<Archetype> archetypes = bodies.archetypes();
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            float[] sleepTime = archetype.sleepTime();
+            for (int row = 0; row < archetype.size(); row++) {
+                if (sleepTime[row] < 0f) archetype.entity(row).getComponent(PhysicsComponent.class).wake();
+            }
         }
     }
 
-    
-    private void updatePhysics(PhysicsComponent physics, float deltaTime) {
-        GameObject owner = physics.getOwner();
-        if (owner == null) return;
+    public float getSleepSpeed() {
+        return sleepSpeed;
+    }
 
-        TransformComponent transform = owner.getComponent(TransformComponent.class);
-        if (transform == null) return;
+    public float getTimeToSleep() {
+        return timeToSleep;
+    }
 
-        // 重力
-        Vector2 acceleration = physics.getAcceleration();
-        if (physics.isUseGravity()) acceleration = acceleration.add(physics.getGravity());
-        physics.setAcceleration(acceleration);
+    public void setSleepThresholds(float sleepSpeed, float timeToSleep) {
+        if (sleepSpeed < 0 || timeToSleep < 0) throw new IllegalArgumentException("sleep thresholds must not be negative");
+        this.sleepSpeed = sleepSpeed;
+        this.timeToSleep = timeToSleep;
+    }
 
-        // 速度更新
-        Vector2 velocity = physics.getVelocity().add(acceleration.multiply(deltaTime));
-        velocity = velocity.multiply(physics.getFriction());
-        physics.setVelocity(velocity);
+    // 接触来源，为 null 时只靠施力和设速度唤醒
+    public void setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+    }
 
-        // 位置更新
-        transform.translate(velocity.multiply(deltaTime));
+    // 上一步参与积分与休眠中的物体数，停用的物体都不计
+    public int getActiveBodies() {
+        return activeBodies;
+    }
+
+    public int getSleepingBodies() {
+        return sleepingBodies;
+    }
 
-        // 重置加速度
-        physics.setAcceleration(new Vector2());
+    // 上一步由接触连成的岛数，每个岛至少两个物体
+    public int getIslandCount() {
+        return islandCount;
     }
 
-    private void handleBoundary(PhysicsComponent physics) {
-        GameObject owner = physics.getOwner();
-        if (owner == null) return;
+    @Override
+    public String getName() {
+        return "Physics";
+    }
 
-        TransformComponent transform = owner.getComponent(TransformComponent.class);
-        if (transform == null) return;
+    @Override
+    public Class<?>[] reads() {
+        return READS;
+    }
 
-        Vector2 pos = transform.getPosition();
-        Vector2 vel = physics.getVelocity();
+    // 子弹出界时会失活，所以也写 GameObject 的激活状态
+    @Override
+    public Class<?>[] writes() {
+        return WRITES;
+    }
 
-        // 子弹超出边界直接销毁
-        if (owner.getComponent(BulletComponent.class) != null) {
-            if (pos.x < 0 || pos.x > screenWidth || pos.y < 0 || pos.y > screenHeight) {
-                owner.setActive(false);
+    @Override
+    public void update(float deltaTime) {
+        List<Archetype> archetypes = bodies.archetypes();
+        if (bodies.count() == 0) {
+            activeBodies = 0;
+            sleepingBodies = 0;
+            return;
+        }
+        long tick = scene.getStorage().getChangeTick();
+        if (sleepingEnabled) solveIslands();
+        activeCounter.set(0);
+        sleepingCounter.set(0);
+        ensureActiveRows(archetypes.size());
+        int alreadySleeping = 0;
+
+        // 按原型分段并行；各行互不依赖，结果与线程调度无关
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            ActiveRows rows = activeRows[a];
+            // 唤醒与岛求解都在这之前完成，本步的行段不会再变
+            if (archetype.takeEnabledChanged()) rows.rebuild(archetype);
+            alreadySleeping += rows.sleeping;
+            if (rows.runCount == 0) continue;
+            // 子弹与否由原型决定，不必逐个实体查询 BulletComponent
+            boolean bullets = archetype.has(BulletComponent.class);
+            if (jobs == null) {
+                for (int r = 0; r < rows.runCount; r++) {
+                    integrate(archetype, rows.start(r), rows.end(r), deltaTime, bullets, tick);
+                }
+            } else {
+                stepArchetype = archetype;
+                stepRows = rows;
+                stepDelta = deltaTime;
+                stepBullets = bullets;
+                stepTick = tick;
+                // grain 按行数计算，再按平均段长换算成段数
+                long grainRows = jobs.grainFor(rows.rowCount, MIN_GRAIN);
+                int grain = (int) Math.max(1, grainRows * rows.runCount / rows.rowCount);
+                jobs.parallelFor(0, rows.runCount, grain, integrateRuns);
             }
+        }
+        stepArchetype = null;
+        stepRows = null;
+        activeBodies = activeCounter.get();
+        sleepingBodies = alreadySleeping + sleepingCounter.get();
+    }
+
+    private void integrate(Archetype archetype, int start, int end, float deltaTime, boolean bullets, long tick) {
+        kernel.integrate(archetype, start, end, deltaTime, screenWidth, screenHeight, bullets, tick);
+        updateSleep(archetype, start, end, deltaTime, tick);
+    }
+
+    /**
+     * 积分后累计醒着的行的静止时间，够久的行入睡并标记原型的启用列有变化。
+     * 只写本段的行，计数每段合并一次。
+     */
+    private void updateSleep(Archetype archetype, int start, int end, float deltaTime, long tick) {
+        if (!sleepingEnabled) {
+            activeCounter.addAndGet(end - start);
             return;
         }
+        float[] velX = archetype.velocityX(), velY = archetype.velocityY();
+        float[] enabled = archetype.physicsEnabled();
+        float[] sleepTime = archetype.sleepTime();
+        long[] velTicks = archetype.changeTicks(PhysicsComponent.class);
+        float speedSq = sleepSpeed * sleepSpeed;
+        int active = 0, sleeping = 0;
 
-        // 其他物体反弹边界
-        boolean velocityChanged = false;
-        float velX = vel.x, velY = vel.y;
-        float posX = pos.x, posY = pos.y;
+        for (int row = start; row < end; row++) {
+            float vx = velX[row], vy = velY[row];
+            float time = vx * vx + vy * vy <= speedSq ? sleepTime[row] + deltaTime : 0f;
+            if (time >= timeToSleep) {
+                if (vx != 0f || vy != 0f) velTicks[row] = tick;
+                velX[row] = 0f;
+                velY[row] = 0f;
+                enabled[row] = 0f;
+                sleepTime[row] = -1f;
+                sleeping++;
+            } else {
+                sleepTime[row] = time;
+                active++;
+            }
+        }
+        if (active > 0) activeCounter.addAndGet(active);
+        if (sleeping > 0) {
+            sleepingCounter.addAndGet(sleeping);
+            archetype.markEnabledChanged();
+        }
+    }
 
-        if (posX <= 0 || posX >= screenWidth - 15) { velX = -velX; velocityChanged = true; }
-        if (posY <= 0 || posY >= screenHeight - 15) { velY = -velY; velocityChanged = true; }
+    /**
+     * 用本步的接触对合并岛：岛内有醒着的物体就唤醒整岛，
+     * 并让所有成员共享最短的静止时间，整岛在同一步入睡。停用的物体不参与。
+     */
+    private void solveIslands() {
+        islandCount = 0;
+        if (broadphase == null) return;
+        ContactBuffer contacts = broadphase.getContacts();
+        if (contacts.size() == 0) return;
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        memberCount = 0;
+        for (int i = 0; i < contacts.size(); i++) {
+            int a = join(contacts.first(i)), b = join(contacts.second(i));
+            if (a < 0 || b < 0) continue;
+            a = find(a);
+            b = find(b);
+            if (a != b) parent[Math.max(a, b)] = Math.min(a, b);
+        }
 
-        posX = Math.max(0, Math.min(screenWidth - 15, posX));
-        posY = Math.max(0, Math.min(screenHeight - 15, posY));
+        for (int m = 0; m < memberCount; m++) {
+            int slot = members[m];
+            GameObject obj = memberOf[slot];
+            float time = obj.archetype.sleepTime()[obj.archetypeRow];
+            int root = find(slot);
+            if (root == slot) islandCount++;
+            if (time >= 0f) {
+                islandAwake[root] = true;
+                islandTime[root] = Math.min(islandTime[root], time);
+            }
+        }
+        for (int m = 0; m < memberCount; m++) {
+            int slot = members[m];
+            int root = find(slot);
+            if (!islandAwake[root]) continue;
+            GameObject obj = memberOf[slot];
+            if (obj.archetype.sleepTime()[obj.archetypeRow] < 0f) obj.getComponent(PhysicsComponent.class).wake();
+            obj.archetype.sleepTime()[obj.archetypeRow] = islandTime[root];
+        }
+        for (int m = 0; m < memberCount; m++) memberOf[members[m]] = null;
+    }
 
-        transform.setPosition(new Vector2(posX, posY));
-        if (velocityChanged) physics.setVelocity(new Vector2(velX, velY));
+    // 把接触中的物理体登记为岛成员，返回其句柄槽位；没有物理或已停用时返回 -1
+    private int join(GameObject obj) {
+        Archetype archetype = obj.archetype;
+        if (archetype == null || archetype.sleepTime() == null) return -1;
+        int row = obj.archetypeRow;
+        if (archetype.sleepTime()[row] >= 0f && archetype.physicsEnabled()[row] == 0f) return -1;
+        int slot = EntityHandle.index(obj.getHandle());
+        ensureSlots(slot + 1);
+        if (stamps[slot] != stamp) {
+            stamps[slot] = stamp;
+            parent[slot] = slot;
+            islandAwake[slot] = false;
+            islandTime[slot] = Float.POSITIVE_INFINITY;
+            memberOf[slot] = obj;
+            if (memberCount == members.length) members = Arrays.copyOf(members, memberCount * 2);
+            members[memberCount++] = slot;
+        }
+        return slot;
     }
 
-    public void cleanup() {
-        if (physicsExecutor != null && !physicsExecutor.isShutdown()) {
-            physicsExecutor.shutdown();
-            try {
-                if (!physicsExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    physicsExecutor.shutdownNow();
+    private int find(int slot) {
+        while (parent[slot] != slot) {
+            parent[slot] = parent[parent[slot]];
+            slot = parent[slot];
+        }
+        return slot;
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity <= parent.length) return;
+        int n = Math.max(capacity, parent.length * 2);
+        parent = Arrays.copyOf(parent, n);
+        stamps = Arrays.copyOf(stamps, n);
+        islandAwake = Arrays.copyOf(islandAwake, n);
+        islandTime = Arrays.copyOf(islandTime, n);
+        memberOf = Arrays.copyOf(memberOf, n);
+    }
+
+    private void ensureActiveRows(int archetypes) {
+        if (activeRows.length >= archetypes) return;
+        int old = activeRows.length;
+        activeRows = Arrays.copyOf(activeRows, Math.max(archetypes, old * 2));
+        for (int a = old; a < activeRows.length; a++) activeRows[a] = new ActiveRows();
+    }
+
+    /**
+     * 一个原型中启用列为 1 的行，按 [start, end) 成对存放的连续段，段长不超过 MAX_RUN。
+     * 同时记下重建时已经休眠的行数。
+     */
+    private static final class ActiveRows {
+        private int[] runs = new int[16];
+        private int runCount;
+        private int rowCount;
+        private int sleeping;
+
+        void rebuild(Archetype archetype) {
+            float[] enabled = archetype.physicsEnabled();
+            float[] sleepTime = archetype.sleepTime();
+            int size = archetype.size();
+            runCount = 0;
+            rowCount = 0;
+            sleeping = 0;
+            int row = 0;
+            while (row < size) {
+                if (enabled[row] == 0f) {
+                    if (sleepTime[row] < 0f) sleeping++;
+                    row++;
+                    continue;
                 }
-            } catch (InterruptedException e) {
-                physicsExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
+                int start = row;
+                while (row < size && enabled[row] != 0f && row - start < MAX_RUN) row++;
+                if (runCount * 2 == runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+                runs[runCount * 2] = start;
+                runs[runCount * 2 + 1] = row;
+                runCount++;
+                rowCount += row - start;
             }
         }
+
+        int start(int run) {
+            return runs[run * 2];
+        }
+
+        int end(int run) {
+            return runs[run * 2 + 1];
+        }
+    }
+
+    // 线程池由 GameEngine 持有，这里没有需要释放的资源
+    public void cleanup() {
+    }
+
+    @Override
+    public String toString() {
+        return "PhysicsSystem[kernel=" + kernel.getName() + " active=" + activeBodies + " sleeping=" + sleepingBodies
+            + " islands=" + islandCount + "]";
     }
 }
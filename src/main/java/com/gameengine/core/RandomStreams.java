@@ -0,0 +1,42 @@
+package com.gameengine.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * 会话级随机数来源。每个系统按名字取独立的 SplittableRandom 流，
+ * 系统之间互不影响抽取次序；同一种子下整局模拟可以逐位复现。
+ */
+public final class RandomStreams {
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    // 非确定模式使用的随机种子
+    public static RandomStreams unseeded() {
+        return new RandomStreams(new SplittableRandom().nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // 系统级流：同名总是得到同一序列的起点
+    public SplittableRandom stream(String system) {
+        return new SplittableRandom(mix(seed, system.hashCode()));
+    }
+
+    // 实体级流：抽取结果与实体的遍历次序无关
+    public SplittableRandom forEntity(String system, long handle) {
+        return new SplittableRandom(mix(mix(seed, system.hashCode()), handle));
+    }
+
+    // SplitMix64 的终结函数，把两个值打散成一个种子
+    private static long mix(long a, long b) {
+        long z = a + 0x9E3779B97F4A7C15L * (b + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,69 @@
+package com.gameengine.core;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+
+/**
+ * 逐行的标量积分，也是向量内核处理尾部不足一组的行时使用的实现。
+ */
+public final class ScalarPhysicsKernel implements PhysicsKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void integrate(Archetype archetype, int start, int end, float deltaTime,
+                          float width, float height, boolean bullets, long tick) {
+        integrateRows(archetype, start, end, deltaTime, width, height, bullets, tick);
+    }
+
+    static void integrateRows(Archetype archetype, int start, int end, float deltaTime,
+                              float width, float height, boolean bullets, long tick) {
+        float[] posX = archetype.positionX(), posY = archetype.positionY();
+        float[] velX = archetype.velocityX(), velY = archetype.velocityY();
+        float[] accX = archetype.accelerationX(), accY = archetype.accelerationY();
+        float[] gravX = archetype.gravityX(), gravY = archetype.gravityY();
+        float[] friction = archetype.friction();
+        float[] enabled = archetype.physicsEnabled();
+        long[] posTicks = archetype.changeTicks(TransformComponent.class);
+        long[] velTicks = archetype.changeTicks(PhysicsComponent.class);
+        float maxX = width - BODY_MARGIN, maxY = height - BODY_MARGIN;
+
+        for (int row = start; row < end; row++) {
+            if (enabled[row] == 0f) continue;
+            float x = posX[row], y = posY[row];
+
+            // 速度更新：加速度与重力合并，再乘摩擦
+            float vx = (velX[row] + (accX[row] + gravX[row]) * deltaTime) * friction[row];
+            float vy = (velY[row] + (accY[row] + gravY[row]) * deltaTime) * friction[row];
+            float nx = x + vx * deltaTime;
+            float ny = y + vy * deltaTime;
+            accX[row] = 0f;
+            accY[row] = 0f;
+
+            if (bullets) {
+                // 子弹出界直接失活
+                if (nx < 0 || nx > width || ny < 0 || ny > height) archetype.entity(row).setActive(false);
+            } else {
+                // 其他物体反弹边界
+                if (nx <= 0 || nx >= maxX) {
+                    vx = -vx;
+                    nx = Math.max(0, Math.min(maxX, nx));
+                }
+                if (ny <= 0 || ny >= maxY) {
+                    vy = -vy;
+                    ny = Math.max(0, Math.min(maxY, ny));
+                }
+            }
+
+            if (nx != x || ny != y) posTicks[row] = tick;
+            if (vx != velX[row] || vy != velY[row]) velTicks[row] = tick;
+            posX[row] = nx;
+            posY[row] = ny;
+            velX[row] = vx;
+            velY[row] = vy;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gameengine.core;
+
+import java.util.function.LongConsumer;
+
+/**
+ * 按包围盒组织实体的空间索引，条目以实体句柄为键。
+ * 不同场景的分布差别很大（少量大物体加大量小子弹，或围着玩家的密集 AI 群），
+ * 因此提供多种实现，按 {@link #getStats()} 报告的更新和查询耗时为每个场景挑选。
+ * 查询可以在多个线程上同时进行，回调中也可以再次查询；插入、移动、移除和清空
+ * 必须由一个线程在没有查询时进行（由写 SpatialIndex 的系统负责），查询回调中不能修改索引。
+ */
+public interface SpatialIndex {
+
+    // 射线查询的结果，由调用方提供并复用
+    final class RayHit {
+        public long handle = EntityHandle.NONE;
+        public float distance;
+    }
+
+    String getName();
+
+    // 句柄的槽位已有其他条目时替换它
+    void insert(long handle, float minX, float minY, float maxX, float maxY);
+
+    // 条目不存在时等同于 insert
+    void move(long handle, float minX, float minY, float maxX, float maxY);
+
+    // 条目不存在或句柄已被同一槽位的新实体取代时忽略
+    void remove(long handle);
+
+    boolean contains(long handle);
+
+    int size();
+
+    void clear();
+
+    // 包围盒与给定区域相交的条目，每个条目最多回调一次
+    void queryAabb(float minX, float minY, float maxX, float maxY, LongConsumer action);
+
+    // 包围盒与给定圆相交的条目，每个条目最多回调一次
+    void queryRadius(float x, float y, float radius, LongConsumer action);
+
+    /**
+     * 从原点沿方向找第一个被击中的包围盒，距离不超过 maxDistance。
+     * 原点在包围盒内时距离为 0；距离相同时取槽位较小的条目。
+     */
+    boolean raycast(float originX, float originY, float dirX, float dirY, float maxDistance, RayHit hit);
+
+    SpatialIndexStats getStats();
+}
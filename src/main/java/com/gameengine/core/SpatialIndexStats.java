@@ -0,0 +1,59 @@
+package com.gameengine.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 空间索引的累计统计：更新（插入/移动/移除）和查询（区域/半径/射线）的次数与耗时，
+ * 以及查询中做过精确测试的候选数。耗时包含计时本身的开销，只用于比较各实现。
+ * 查询可能来自多个线程，查询一侧的计数用 LongAdder 累加。
+ */
+public final class SpatialIndexStats {
+    private long updates;
+    private long updateNanos;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder results = new LongAdder();
+
+    void recordUpdate(long nanos) {
+        updates++;
+        updateNanos += nanos;
+    }
+
+    void recordQuery(long nanos, long candidateCount, long resultCount) {
+        queries.increment();
+        queryNanos.add(nanos);
+        candidates.add(candidateCount);
+        results.add(resultCount);
+    }
+
+    public long getUpdates() { return updates; }
+    public long getUpdateNanos() { return updateNanos; }
+    public long getQueries() { return queries.sum(); }
+    public long getQueryNanos() { return queryNanos.sum(); }
+    public long getCandidates() { return candidates.sum(); }
+    public long getResults() { return results.sum(); }
+
+    public double getAverageUpdateMicros() {
+        return updates == 0 ? 0 : updateNanos / 1000.0 / updates;
+    }
+
+    public double getAverageQueryMicros() {
+        long count = getQueries();
+        return count == 0 ? 0 : getQueryNanos() / 1000.0 / count;
+    }
+
+    public void reset() {
+        updates = updateNanos = 0;
+        queries.reset();
+        queryNanos.reset();
+        candidates.reset();
+        results.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("updates=%d (%.3fus avg) queries=%d (%.3fus avg) candidates=%d results=%d",
+            updates, getAverageUpdateMicros(), getQueries(), getAverageQueryMicros(), getCandidates(), getResults());
+    }
+}
@@ -0,0 +1,78 @@
+package com.gameengine.core;
+
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.scene.Scene;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 让场景的 {@link SpatialIndex} 跟上带碰撞体的实体：按变更刻只处理上次同步后
+ * 移除、新增或移动过的实体，静止的物体没有开销。条目是以 Transform 为中心、
+ * 碰撞半径为半边长的包围盒。场景换了索引实现时整体重建一次。
+ */
+public class SpatialIndexSystem implements GameSystem {
+    private static final Class<?>[] READS = { TransformComponent.class, ColliderComponent.class, GameObject.class };
+    private static final Class<?>[] WRITES = { SpatialIndex.class };
+    // 可变参数每次调用都会新建数组
+    private static final Class<?>[] SYNCED = { TransformComponent.class, ColliderComponent.class };
+
+    private final Scene scene;
+    private final EntityQuery bodies;
+    private final LongConsumer removeAction = this::remove;
+    private final Consumer<GameObject> updateAction = this::update;
+    private SpatialIndex index;
+    private long syncedTick = -1;
+
+    public SpatialIndexSystem(Scene scene) {
+        this.scene = scene;
+        this.bodies = scene.getStorage().query(TransformComponent.class, ColliderComponent.class);
+    }
+
+    @Override
+    public String getName() {
+        return "SpatialIndex";
+    }
+
+    @Override
+    public Class<?>[] reads() {
+        return READS;
+    }
+
+    @Override
+    public Class<?>[] writes() {
+        return WRITES;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        EntityStorage storage = scene.getStorage();
+        SpatialIndex current = scene.getSpatialIndex();
+        if (current != index) {
+            index = current;
+            index.clear();
+            syncedTick = -1;
+        }
+        // 先移除再更新：槽位被新实体复用时，旧句柄的条目先离开
+        storage.forEachRemovedSince(syncedTick, removeAction);
+        bodies.forEachChanged(syncedTick, updateAction, SYNCED);
+        // 本刻在同步之后的修改也记为本刻，下次从本刻重新看，重复的移动和移除都是幂等的
+        syncedTick = storage.getChangeTick() - 1;
+    }
+
+    private void remove(long handle) {
+        index.remove(handle);
+    }
+
+    private void update(GameObject obj) {
+        TransformComponent transform = obj.getComponent(TransformComponent.class);
+        ColliderComponent collider = obj.getComponent(ColliderComponent.class);
+        float x = transform.getX(), y = transform.getY(), r = collider.getRadius();
+        index.move(obj.getHandle(), x - r, y - r, x + r, y + r);
+    }
+
+    @Override
+    public String toString() {
+        return "SpatialIndexSystem[" + index + "]";
+    }
+}
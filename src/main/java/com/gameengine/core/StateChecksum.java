@@ -0,0 +1,45 @@
+package com.gameengine.core;
+
+import java.util.List;
+
+/**
+ * 模拟状态校验和：按原型创建顺序和行顺序折叠句柄、位置、速度与血量的原始位。
+ * 同一种子、同一输入下每步的值应完全相同，用来验证回放和并行路径没有改变结果。
+ */
+public final class StateChecksum {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StateChecksum() {}
+
+    public static long compute(EntityStorage storage) {
+        long hash = FNV_OFFSET;
+        List<Archetype> archetypes = storage.getArchetypes();
+        for (int a = 0; a < archetypes.size(); a++) {
+            Archetype archetype = archetypes.get(a);
+            int size = archetype.size();
+            if (size == 0) continue;
+            hash = fold(hash, archetype.getSignature());
+            float[] posX = archetype.positionX(), posY = archetype.positionY();
+            float[] velX = archetype.velocityX(), velY = archetype.velocityY();
+            int[] health = archetype.health();
+            for (int row = 0; row < size; row++) {
+                hash = fold(hash, archetype.entity(row).getHandle());
+                if (posX != null) {
+                    hash = fold(hash, Float.floatToRawIntBits(posX[row]));
+                    hash = fold(hash, Float.floatToRawIntBits(posY[row]));
+                }
+                if (velX != null) {
+                    hash = fold(hash, Float.floatToRawIntBits(velX[row]));
+                    hash = fold(hash, Float.floatToRawIntBits(velY[row]));
+                }
+                if (health != null) hash = fold(hash, health[row]);
+            }
+        }
+        return hash;
+    }
+
+    private static long fold(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,234 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 系统调度器：每步根据读写声明建立依赖图，互不冲突的系统并行执行。
+ * 两个系统冲突是指一方写的类型另一方读或写；冲突时按注册顺序先后执行，
+ * 所以结果与串行按注册顺序执行相同。依赖图按层执行，层内的系统并行。
+ */
+public class SystemScheduler {
+    private final List<GameSystem> systems = new ArrayList<>();
+    // 资源类型 -> 位下标，一个调度器最多 64 种资源
+    private final Map<Class<?>, Integer> resourceBits = new HashMap<>();
+    private Executor executor = ForkJoinPool.commonPool();
+    // 单核机器上并行只有切换开销
+    private boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+
+    // 每步重建的依赖图，按系统下标存放
+    private GameSystem[] active = new GameSystem[0];
+    private long[] readMasks = new long[0];
+    private long[] writeMasks = new long[0];
+    private int[][] predecessors = new int[0][];
+    private int[] scratch = new int[0];
+    // 层号 = 1 + 所有前驱的最大层号
+    private int[] levels = new int[0];
+    private int maxLevel;
+    // 按系统下标复用的任务，join 后 reinitialize，稳定后每步不再分配
+    private SystemTask[] tasks = new SystemTask[0];
+    private int[] pending = new int[0];
+    // 系统运行期间的结构性修改记录到命令队列，顺序键为 keyBase + 注册下标
+    private CommandQueue commands;
+    private long keyBase;
+    private int activeCount;
+
+    public void add(GameSystem system) {
+        systems.add(system);
+    }
+
+    public boolean remove(GameSystem system) {
+        return systems.remove(system);
+    }
+
+    public void clear() {
+        systems.clear();
+        activeCount = 0;
+    }
+
+    public List<GameSystem> getSystems() {
+        return Collections.unmodifiableList(systems);
+    }
+
+    public void setCommandQueue(CommandQueue commands, long keyBase) {
+        this.commands = commands;
+        this.keyBase = keyBase;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    // 关闭后按注册顺序串行执行，便于对比并行结果
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void run(float deltaTime) {
+        buildGraph();
+        if (activeCount == 0) return;
+        if (!parallel || activeCount == 1 || executor == null) {
+            for (int i = 0; i < activeCount; i++) runSystem(i, deltaTime);
+            return;
+        }
+
+        // 按层执行：同一层的系统互不冲突。每层第一个系统在调用线程上执行，其余交给线程池，
+        // 只有一个系统的层不产生任何线程切换
+        for (int level = 0; level <= maxLevel; level++) {
+            int first = -1, pendingCount = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (levels[i] != level) continue;
+                if (first < 0) {
+                    first = i;
+                } else {
+                    SystemTask task = tasks[i];
+                    task.deltaTime = deltaTime;
+                    submit(task);
+                    pending[pendingCount++] = i;
+                }
+            }
+            Throwable failure = null;
+            try {
+                if (first >= 0) runSystem(first, deltaTime);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            // 任务全部结束才能复用，出错时也要等完；等待不阻塞，见 JobSystem.awaitDone
+            for (int p = 0; p < pendingCount; p++) {
+                SystemTask task = tasks[pending[p]];
+                JobSystem.awaitDone(task);
+                if (failure == null && task.isCompletedAbnormally()) failure = task.getException();
+                task.reinitialize();
+            }
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+        }
+    }
+
+    // ForkJoinPool 直接接收任务；其他执行器在它的线程上 invoke
+    private void submit(SystemTask task) {
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).execute(task);
+        } else {
+            executor.execute(task.runner);
+        }
+    }
+
+    private void runSystem(int index, float deltaTime) {
+        if (commands == null) {
+            active[index].update(deltaTime);
+            return;
+        }
+        commands.enter(keyBase + index);
+        try {
+            active[index].update(deltaTime);
+        } finally {
+            commands.exit();
+        }
+    }
+
+    // 只连接直接冲突的系统，传递依赖由层号保证
+    private void buildGraph() {
+        int n = systems.size();
+        if (active.length < n) {
+            active = new GameSystem[n];
+            readMasks = new long[n];
+            writeMasks = new long[n];
+            predecessors = new int[n][];
+            scratch = new int[n];
+            levels = new int[n];
+            pending = new int[n];
+            SystemTask[] grown = new SystemTask[n];
+            for (int i = 0; i < n; i++) grown[i] = i < tasks.length ? tasks[i] : new SystemTask(i);
+            tasks = grown;
+        }
+        activeCount = 0;
+        maxLevel = 0;
+        for (int s = 0; s < n; s++) {
+            GameSystem system = systems.get(s);
+            if (!system.isEnabled()) continue;
+            int i = activeCount++;
+            active[i] = system;
+            readMasks[i] = maskOf(system.reads());
+            writeMasks[i] = maskOf(system.writes());
+        }
+        for (int i = 0; i < activeCount; i++) {
+            int count = 0;
+            for (int j = 0; j < i; j++) {
+                if (conflicts(i, j)) scratch[count++] = j;
+            }
+            int[] deps = predecessors[i];
+            if (deps == null || deps.length != count) deps = new int[count];
+            System.arraycopy(scratch, 0, deps, 0, count);
+            predecessors[i] = deps;
+            int level = 0;
+            for (int d = 0; d < count; d++) level = Math.max(level, levels[deps[d]] + 1);
+            levels[i] = level;
+            maxLevel = Math.max(maxLevel, level);
+        }
+    }
+
+    private boolean conflicts(int a, int b) {
+        if (active[a].isExclusive() || active[b].isExclusive()) return true;
+        return (writeMasks[a] & (readMasks[b] | writeMasks[b])) != 0
+            || (writeMasks[b] & readMasks[a]) != 0;
+    }
+
+    private long maskOf(Class<?>[] types) {
+        long mask = 0;
+        for (Class<?> type : types) {
+            Integer bit = resourceBits.get(type);
+            if (bit == null) {
+                if (resourceBits.size() == 64) throw new IllegalStateException("资源类型超过 64 种: " + type.getName());
+                bit = resourceBits.size();
+                resourceBits.put(type, bit);
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    // 调试用：列出上一步的依赖图
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SystemScheduler[");
+        for (int i = 0; i < activeCount; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(active[i].getName()).append('@').append(levels[i]);
+            if (predecessors[i].length > 0) {
+                sb.append(" <- ");
+                for (int d = 0; d < predecessors[i].length; d++) {
+                    if (d > 0) sb.append('|');
+                    sb.append(active[predecessors[i][d]].getName());
+                }
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private final class SystemTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+        private float deltaTime;
+        private final transient Runnable runner = this::quietlyInvoke;
+
+        SystemTask(int index) {
+            this.index = index;
+        }
+
+        @Override
+        protected void compute() {
+            runSystem(index, deltaTime);
+        }
+    }
+}
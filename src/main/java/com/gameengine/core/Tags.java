@@ -0,0 +1,13 @@
+package com.gameengine.core;
+
+/**
+ * 常用的实体标签（角色），配合 Scene 的标签索引使用。
+ */
+public final class Tags {
+    public static final String PLAYER = "player";
+    public static final String ENEMY = "enemy";
+    public static final String BULLET = "bullet";
+    public static final String DECORATION = "decoration";
+
+    private Tags() {}
+}
@@ -0,0 +1,268 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 均匀网格：条目挂到它覆盖的每个格子上，格子经哈希映射到桶，世界大小不受限制。
+ * 适合大小相近、分布较均匀的物体；覆盖格子过多的大物体单独放一个列表，每次查询都检查。
+ * 链表节点放在数组池里复用，稳定运行后更新和查询不分配内存。
+ */
+public class UniformGridIndex extends AbstractSpatialIndex {
+    // 超过这个格子数的条目不挂格子
+    private static final int MAX_CELLS_PER_ENTRY = 16;
+
+    private final float cellSize;
+    private final float invCell;
+
+    // 每个槽位覆盖的格子范围，以及在大物体列表中的位置（-1 表示不在）
+    private int[] cellX0 = new int[64], cellY0 = new int[64], cellX1 = new int[64], cellY1 = new int[64];
+    private int[] oversizedAt = new int[64];
+    private int[] oversized = new int[16];
+    private int oversizedCount;
+
+    // 桶与节点池：节点记录所属槽位和格子坐标，同一桶内不同格子的节点靠坐标区分
+    private int[] bucketHead = new int[64];
+    private int bucketMask = 63;
+    private int[] nodeSlot = new int[64], nodeNext = new int[64], nodeCellX = new int[64], nodeCellY = new int[64];
+    private int nodeTop;
+    private int freeNode = -1;
+    private int liveNodes;
+
+    // 挂过条目的格子范围，射线走出这个范围就停止
+    private int extentX0, extentY0, extentX1, extentY1;
+    private boolean hasExtent;
+
+    public UniformGridIndex(float cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("cellSize must be positive");
+        this.cellSize = cellSize;
+        this.invCell = 1f / cellSize;
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(oversizedAt, -1);
+    }
+
+    @Override
+    public String getName() {
+        return "UniformGrid(" + cellSize + ")";
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    protected void onInsert(int slot) {
+        link(slot);
+    }
+
+    @Override
+    protected void onMove(int slot) {
+        int x0 = cell(minX[slot]), y0 = cell(minY[slot]), x1 = cell(maxX[slot]), y1 = cell(maxY[slot]);
+        // 覆盖的格子没变时只需更新包围盒，这是小物体移动的常见情况
+        if (x0 == cellX0[slot] && y0 == cellY0[slot] && x1 == cellX1[slot] && y1 == cellY1[slot]) return;
+        unlink(slot);
+        link(slot);
+    }
+
+    @Override
+    protected void onRemove(int slot) {
+        unlink(slot);
+    }
+
+    @Override
+    protected void onClear() {
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(oversizedAt, -1);
+        nodeTop = 0;
+        freeNode = -1;
+        liveNodes = 0;
+        oversizedCount = 0;
+        hasExtent = false;
+    }
+
+    @Override
+    protected void collect(Query q, float minX, float minY, float maxX, float maxY) {
+        for (int i = 0; i < oversizedCount; i++) candidate(q, oversized[i]);
+        int x0 = cell(minX), y0 = cell(minY), x1 = cell(maxX), y1 = cell(maxY);
+        // 区域覆盖的格子比节点还多时，直接扫全部槽位更快
+        long cells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+        if (cells > liveNodes) {
+            int capacity = slotCapacity();
+            for (int slot = 0; slot < capacity; slot++) {
+                if (occupied(slot) && oversizedAt[slot] < 0) candidate(q, slot);
+            }
+            return;
+        }
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) visitCell(q, cx, cy, false);
+        }
+    }
+
+    /**
+     * 沿射线逐格前进（Amanatides-Woo）。一个格子处理完后，
+     * 若已有命中且不远于这个格子的出口，后面的格子不可能更近，直接结束。
+     */
+    @Override
+    protected void traceRay(Query q) {
+        for (int i = 0; i < oversizedCount; i++) rayCandidate(q, oversized[i]);
+        if (!hasExtent) return;
+
+        int cx = cell(q.rayOriginX), cy = cell(q.rayOriginY);
+        int stepX = q.rayDirX > 0 ? 1 : q.rayDirX < 0 ? -1 : 0;
+        int stepY = q.rayDirY > 0 ? 1 : q.rayDirY < 0 ? -1 : 0;
+        float nextX = stepX == 0 ? Float.POSITIVE_INFINITY
+            : ((cx + (stepX > 0 ? 1 : 0)) * cellSize - q.rayOriginX) / q.rayDirX;
+        float nextY = stepY == 0 ? Float.POSITIVE_INFINITY
+            : ((cy + (stepY > 0 ? 1 : 0)) * cellSize - q.rayOriginY) / q.rayDirY;
+        float deltaX = stepX == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(q.rayDirX);
+        float deltaY = stepY == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(q.rayDirY);
+
+        float enter = 0f;
+        while (enter <= q.rayMaxT) {
+            if (outsideExtent(cx, cy, stepX, stepY)) return;
+            visitCell(q, cx, cy, true);
+            float exit = Math.min(nextX, nextY);
+            if (q.rayMaxT <= exit) return;
+            enter = exit;
+            if (nextX < nextY) {
+                cx += stepX;
+                nextX += deltaX;
+            } else {
+                cy += stepY;
+                nextY += deltaY;
+            }
+        }
+    }
+
+    @Override
+    protected void growSlots(int capacity) {
+        int old = cellX0.length;
+        cellX0 = Arrays.copyOf(cellX0, capacity);
+        cellY0 = Arrays.copyOf(cellY0, capacity);
+        cellX1 = Arrays.copyOf(cellX1, capacity);
+        cellY1 = Arrays.copyOf(cellY1, capacity);
+        oversizedAt = Arrays.copyOf(oversizedAt, capacity);
+        Arrays.fill(oversizedAt, old, capacity, -1);
+    }
+
+    // 已经离开挂过条目的范围，且前进方向只会越走越远
+    private boolean outsideExtent(int cx, int cy, int stepX, int stepY) {
+        return (cx < extentX0 && stepX <= 0) || (cx > extentX1 && stepX >= 0)
+            || (cy < extentY0 && stepY <= 0) || (cy > extentY1 && stepY >= 0);
+    }
+
+    private void visitCell(Query q, int cx, int cy, boolean ray) {
+        for (int n = bucketHead[bucket(cx, cy)]; n >= 0; n = nodeNext[n]) {
+            if (nodeCellX[n] != cx || nodeCellY[n] != cy) continue;
+            if (ray) rayCandidate(q, nodeSlot[n]);
+            else candidate(q, nodeSlot[n]);
+        }
+    }
+
+    private void link(int slot) {
+        int x0 = cell(minX[slot]), y0 = cell(minY[slot]), x1 = cell(maxX[slot]), y1 = cell(maxY[slot]);
+        cellX0[slot] = x0;
+        cellY0[slot] = y0;
+        cellX1[slot] = x1;
+        cellY1[slot] = y1;
+        long cells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+        if (cells > MAX_CELLS_PER_ENTRY) {
+            if (oversizedCount == oversized.length) oversized = Arrays.copyOf(oversized, oversizedCount * 2);
+            oversizedAt[slot] = oversizedCount;
+            oversized[oversizedCount++] = slot;
+            return;
+        }
+        if (!hasExtent) {
+            extentX0 = x0; extentY0 = y0; extentX1 = x1; extentY1 = y1;
+            hasExtent = true;
+        } else {
+            extentX0 = Math.min(extentX0, x0); extentY0 = Math.min(extentY0, y0);
+            extentX1 = Math.max(extentX1, x1); extentY1 = Math.max(extentY1, y1);
+        }
+        if (liveNodes + (int) cells > bucketHead.length * 2) rehash(bucketHead.length * 4);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int n = allocateNode();
+                nodeSlot[n] = slot;
+                nodeCellX[n] = cx;
+                nodeCellY[n] = cy;
+                int b = bucket(cx, cy);
+                nodeNext[n] = bucketHead[b];
+                bucketHead[b] = n;
+            }
+        }
+    }
+
+    private void unlink(int slot) {
+        int at = oversizedAt[slot];
+        if (at >= 0) {
+            int last = oversized[--oversizedCount];
+            oversized[at] = last;
+            oversizedAt[last] = at;
+            oversizedAt[slot] = -1;
+            return;
+        }
+        for (int cy = cellY0[slot]; cy <= cellY1[slot]; cy++) {
+            for (int cx = cellX0[slot]; cx <= cellX1[slot]; cx++) {
+                int b = bucket(cx, cy);
+                int prev = -1;
+                for (int n = bucketHead[b]; n >= 0; prev = n, n = nodeNext[n]) {
+                    if (nodeSlot[n] != slot || nodeCellX[n] != cx || nodeCellY[n] != cy) continue;
+                    if (prev < 0) bucketHead[b] = nodeNext[n];
+                    else nodeNext[prev] = nodeNext[n];
+                    releaseNode(n);
+                    break;
+                }
+            }
+        }
+    }
+
+    private int allocateNode() {
+        liveNodes++;
+        if (freeNode >= 0) {
+            int n = freeNode;
+            freeNode = nodeNext[n];
+            return n;
+        }
+        if (nodeTop == nodeSlot.length) {
+            int capacity = nodeTop * 2;
+            nodeSlot = Arrays.copyOf(nodeSlot, capacity);
+            nodeNext = Arrays.copyOf(nodeNext, capacity);
+            nodeCellX = Arrays.copyOf(nodeCellX, capacity);
+            nodeCellY = Arrays.copyOf(nodeCellY, capacity);
+        }
+        return nodeTop++;
+    }
+
+    private void releaseNode(int n) {
+        liveNodes--;
+        nodeNext[n] = freeNode;
+        freeNode = n;
+    }
+
+    // 节点数超过桶数两倍时扩容，按节点的格子坐标重新分桶
+    private void rehash(int buckets) {
+        int[] oldHead = bucketHead;
+        bucketHead = new int[buckets];
+        bucketMask = buckets - 1;
+        Arrays.fill(bucketHead, -1);
+        for (int b = 0; b < oldHead.length; b++) {
+            int n = oldHead[b];
+            while (n >= 0) {
+                int next = nodeNext[n];
+                int nb = bucket(nodeCellX[n], nodeCellY[n]);
+                nodeNext[n] = bucketHead[nb];
+                bucketHead[nb] = n;
+                n = next;
+            }
+        }
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCell);
+    }
+
+    private int bucket(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+        return (h ^ (h >>> 15)) & bucketMask;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gameengine.core;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import java.util.Arrays;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 jdk.incubator.vector 的积分内核，一次处理一组通道。
+ * 运算顺序与标量实现逐项相同（Java 不会自动融合乘加），结果逐位一致，
+ * 停用的行通过掩码保留原值。需要 --add-modules jdk.incubator.vector，
+ * 由 {@link PhysicsKernel#create()} 反射加载。
+ */
+final class VectorPhysicsKernel implements PhysicsKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector(" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void integrate(Archetype archetype, int start, int end, float deltaTime,
+                          float width, float height, boolean bullets, long tick) {
+        float[] posX = archetype.positionX(), posY = archetype.positionY();
+        float[] velX = archetype.velocityX(), velY = archetype.velocityY();
+        float[] accX = archetype.accelerationX(), accY = archetype.accelerationY();
+        float[] gravX = archetype.gravityX(), gravY = archetype.gravityY();
+        float[] friction = archetype.friction();
+        float[] enabled = archetype.physicsEnabled();
+        long[] posTicks = archetype.changeTicks(TransformComponent.class);
+        long[] velTicks = archetype.changeTicks(PhysicsComponent.class);
+        float maxX = width - BODY_MARGIN, maxY = height - BODY_MARGIN;
+        FloatVector zero = FloatVector.zero(SPECIES);
+
+        int step = SPECIES.length();
+        int upper = start + SPECIES.loopBound(end - start);
+        int i = start;
+        for (; i < upper; i += step) {
+            VectorMask<Float> on = FloatVector.fromArray(SPECIES, enabled, i).compare(VectorOperators.NE, 0f);
+            if (!on.anyTrue()) continue;
+
+            FloatVector x = FloatVector.fromArray(SPECIES, posX, i);
+            FloatVector y = FloatVector.fromArray(SPECIES, posY, i);
+            FloatVector vx0 = FloatVector.fromArray(SPECIES, velX, i);
+            FloatVector vy0 = FloatVector.fromArray(SPECIES, velY, i);
+            FloatVector f = FloatVector.fromArray(SPECIES, friction, i);
+            FloatVector ax = FloatVector.fromArray(SPECIES, accX, i).add(FloatVector.fromArray(SPECIES, gravX, i));
+            FloatVector ay = FloatVector.fromArray(SPECIES, accY, i).add(FloatVector.fromArray(SPECIES, gravY, i));
+
+            FloatVector vx = vx0.add(ax.mul(deltaTime)).mul(f);
+            FloatVector vy = vy0.add(ay.mul(deltaTime)).mul(f);
+            FloatVector nx = x.add(vx.mul(deltaTime));
+            FloatVector ny = y.add(vy.mul(deltaTime));
+
+            boolean escaped = false;
+            if (bullets) {
+                VectorMask<Float> out = nx.compare(VectorOperators.LT, 0f)
+                    .or(nx.compare(VectorOperators.GT, width))
+                    .or(ny.compare(VectorOperators.LT, 0f))
+                    .or(ny.compare(VectorOperators.GT, height))
+                    .and(on);
+                escaped = out.anyTrue();
+            } else {
+                VectorMask<Float> hitX = nx.compare(VectorOperators.LE, 0f).or(nx.compare(VectorOperators.GE, maxX));
+                VectorMask<Float> hitY = ny.compare(VectorOperators.LE, 0f).or(ny.compare(VectorOperators.GE, maxY));
+                vx = vx.blend(vx.neg(), hitX);
+                vy = vy.blend(vy.neg(), hitY);
+                nx = nx.blend(nx.min(maxX).max(0f), hitX);
+                ny = ny.blend(ny.min(maxY).max(0f), hitY);
+            }
+
+            // 停用的行保留原值，整组无掩码写回
+            nx = x.blend(nx, on);
+            ny = y.blend(ny, on);
+            vx = vx0.blend(vx, on);
+            vy = vy0.blend(vy, on);
+            // 掩码和向量都不能作为参数传出循环体：JDK 17 的 C2 会把它们装箱，
+            // 每组多出几十字节的分配（toLong() 同样没有内联展开）。
+            // 整组都变化是常态，按块填充；只有部分变化时写回后逐行和旧值比较
+            VectorMask<Float> moved = nx.compare(VectorOperators.NE, x).or(ny.compare(VectorOperators.NE, y));
+            VectorMask<Float> sped = vx.compare(VectorOperators.NE, vx0).or(vy.compare(VectorOperators.NE, vy0));
+            boolean allMoved = moved.allTrue(), someMoved = allMoved || moved.anyTrue();
+            boolean allSped = sped.allTrue(), someSped = allSped || sped.anyTrue();
+            nx.intoArray(posX, i);
+            ny.intoArray(posY, i);
+            vx.intoArray(velX, i);
+            vy.intoArray(velY, i);
+            if (allMoved) Arrays.fill(posTicks, i, i + step, tick);
+            else if (someMoved) {
+                for (int k = 0; k < step; k++) {
+                    if (posX[i + k] != x.lane(k) || posY[i + k] != y.lane(k)) posTicks[i + k] = tick;
+                }
+            }
+            if (allSped) Arrays.fill(velTicks, i, i + step, tick);
+            else if (someSped) {
+                for (int k = 0; k < step; k++) {
+                    if (velX[i + k] != vx0.lane(k) || velY[i + k] != vy0.lane(k)) velTicks[i + k] = tick;
+                }
+            }
+            if (escaped) deactivateOutside(archetype, posX, posY, enabled, i, width, height);
+            FloatVector.fromArray(SPECIES, accX, i).blend(zero, on).intoArray(accX, i);
+            FloatVector.fromArray(SPECIES, accY, i).blend(zero, on).intoArray(accY, i);
+        }
+        // 不足一组的尾部走标量
+        ScalarPhysicsKernel.integrateRows(archetype, i, end, deltaTime, width, height, bullets, tick);
+    }
+
+    // 一组里只有部分子弹出界时才走到，按写回后的位置逐行判断
+    private static void deactivateOutside(Archetype archetype, float[] posX, float[] posY, float[] enabled,
+                                          int base, float width, float height) {
+        for (int row = base; row < base + SPECIES.length(); row++) {
+            if (enabled[row] == 0f) continue;
+            if (posX[row] < 0 || posX[row] > width || posY[row] < 0 || posY[row] > height) {
+                archetype.entity(row).setActive(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.gameengine.example;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.AvoidanceSolver;
+import com.gameengine.core.DynamicAabbTree;
+import com.gameengine.core.EntityHandle;
+import com.gameengine.core.GameObject;
+import com.gameengine.core.JobSystem;
+import com.gameengine.core.LooseQuadtreeIndex;
+import com.gameengine.core.PhysicsKernel;
+import com.gameengine.core.PhysicsSystem;
+import com.gameengine.core.ScalarPhysicsKernel;
+import com.gameengine.core.SpatialIndex;
+import com.gameengine.core.SpatialIndexStats;
+import com.gameengine.core.UniformGridIndex;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Scene;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * 命令行基准测试，由 Game 按第一个参数分派。每项先跑同样的步数预热 JIT，再计时。
+ */
+public final class Benchmarks {
+    private Benchmarks() {}
+
+    // 运行 args[0] 指定的基准；不是基准参数时返回 false
+    public static boolean run(String[] args) {
+        switch (args[0]) {
+            // --bench-physics [物体数] [步数]：单线程只跑物理积分，对比向量与标量内核，
+            // 再在九成物体静止的场景里对比开关休眠
+            case "--bench-physics": {
+                int bodies = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+                int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+                physics(PhysicsKernel.createVector(), bodies, ticks, 0, false);
+                physics(new ScalarPhysicsKernel(), bodies, ticks, 0, false);
+                physics(PhysicsKernel.create(), bodies, ticks, 90, false);
+                physics(PhysicsKernel.create(), bodies, ticks, 90, true);
+                return true;
+            }
+            // --bench-avoidance [AI 数] [步数]：AI 避让的串行与并行耗时
+            case "--bench-avoidance": {
+                int agents = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+                int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+                avoidance(null, agents, ticks);
+                JobSystem jobs = new JobSystem();
+                avoidance(jobs, agents, ticks);
+                jobs.shutdown();
+                return true;
+            }
+            // --bench-spatial [物体数] [步数]：两种分布下比较各空间索引实现的更新与查询耗时
+            case "--bench-spatial": {
+                int bodies = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+                int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+                for (boolean clustered : new boolean[] { true, false }) {
+                    spatial(new UniformGridIndex(64f), clustered, bodies, ticks);
+                    spatial(new LooseQuadtreeIndex(0, 0, 1024, 7), clustered, bodies, ticks);
+                    spatial(new DynamicAabbTree(4f), clustered, bodies, ticks);
+                }
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    // restingPercent 的物体带摩擦，很快停下；其余匀速运动
+    private static void physics(PhysicsKernel kernel, int bodies, int ticks, int restingPercent, boolean sleeping) {
+        Scene scene = new Scene("PhysicsBench");
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < bodies; i++) {
+            GameObject body = new GameObject("Body");
+            body.addComponent(new TransformComponent(new Vector2(random.nextInt(1024), random.nextInt(768))));
+            PhysicsComponent physics = body.addComponent(new PhysicsComponent(1f));
+            physics.setVelocity((float) random.nextDouble(-150, 150), (float) random.nextDouble(-150, 150));
+            physics.setFriction(random.nextInt(100) < restingPercent ? 0.8f : 1f);
+            scene.addGameObject(body);
+        }
+        scene.update(0f);
+        PhysicsSystem physics = new PhysicsSystem(scene, 1024, 768, null);
+        physics.setKernel(kernel);
+        physics.setSleepingEnabled(sleeping);
+        float dt = 1f / 60f;
+        for (int t = 0; t < ticks; t++) physics.update(dt); // 预热 JIT
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) physics.update(dt);
+        double ms = (System.nanoTime() - start) / 1_000_000.0 / ticks;
+        if (restingPercent == 0) {
+            System.out.printf("%s: %d 个物体 %.3f ms/步%n", kernel.getName(), bodies, ms);
+        } else {
+            System.out.printf("%s: %d 个物体 (%d%% 静止, 休眠%s) %.3f ms/步, 活动 %d 休眠 %d%n", kernel.getName(), bodies,
+                restingPercent, sleeping ? "开" : "关", ms, physics.getActiveBodies(), physics.getSleepingBodies());
+        }
+    }
+
+    private static void avoidance(JobSystem jobs, int agents, int ticks) {
+        Scene scene = new Scene("AvoidanceBench");
+        SplittableRandom random = new SplittableRandom(1);
+        List<GameObject> list = new ArrayList<>();
+        for (int i = 0; i < agents; i++) {
+            GameObject agent = new GameObject("Agent");
+            agent.addComponent(new TransformComponent(new Vector2(random.nextInt(1024), random.nextInt(768))));
+            agent.addComponent(new PhysicsComponent(1f));
+            scene.addGameObject(agent);
+            list.add(agent);
+        }
+        scene.update(0f);
+        scene.getStorage().swapBuffers();
+        AvoidanceSolver solver = new AvoidanceSolver(jobs);
+        float dt = 1f / 60f;
+        for (int t = 0; t < ticks; t++) solver.solve(list, dt); // 预热 JIT
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) solver.solve(list, dt);
+        double ms = (System.nanoTime() - start) / 1_000_000.0 / ticks;
+        System.out.printf("%s: %.3f ms/步 %s%n", jobs != null ? jobs : "串行", ms, solver);
+    }
+
+    /**
+     * clustered：AI 围成 8 个团，每个小幅随机移动；否则 20 个半径 150 的大物体加高速直线飞行的子弹。
+     * 每步移动全部物体，再做 200 次半径 80 的查询和 50 次射线查询。
+     */
+    private static void spatial(SpatialIndex index, boolean clustered, int bodies, int ticks) {
+        SplittableRandom random = new SplittableRandom(1);
+        float[] x = new float[bodies], y = new float[bodies], vx = new float[bodies], vy = new float[bodies];
+        float[] radius = new float[bodies];
+        for (int i = 0; i < bodies; i++) {
+            if (clustered) {
+                int cluster = i % 8;
+                x[i] = 128 + (cluster % 4) * 256 + (float) (random.nextGaussian() * 40);
+                y[i] = 192 + (cluster / 4) * 384 + (float) (random.nextGaussian() * 40);
+                radius[i] = 10;
+            } else {
+                x[i] = random.nextInt(1024);
+                y[i] = random.nextInt(768);
+                boolean large = i < 20;
+                radius[i] = large ? 150 : 0;
+                float speed = large ? 20 : 400;
+                double angle = random.nextDouble(Math.PI * 2);
+                vx[i] = (float) Math.cos(angle) * speed;
+                vy[i] = (float) Math.sin(angle) * speed;
+            }
+        }
+        LongConsumer sink = handle -> {};
+        SpatialIndex.RayHit hit = new SpatialIndex.RayHit();
+        float dt = 1f / 60f;
+        for (int t = 0; t < ticks * 2; t++) {
+            // 前一半步数预热 JIT，之后清零统计
+            if (t == ticks) index.getStats().reset();
+            for (int i = 0; i < bodies; i++) {
+                if (clustered) {
+                    x[i] += (float) random.nextDouble(-1, 1);
+                    y[i] += (float) random.nextDouble(-1, 1);
+                } else {
+                    x[i] = (x[i] + vx[i] * dt + 1024) % 1024;
+                    y[i] = (y[i] + vy[i] * dt + 768) % 768;
+                }
+                long handle = EntityHandle.pack(i, 1);
+                index.move(handle, x[i] - radius[i], y[i] - radius[i], x[i] + radius[i], y[i] + radius[i]);
+            }
+            for (int q = 0; q < 200; q++) {
+                int i = random.nextInt(bodies);
+                index.queryRadius(x[i], y[i], 80, sink);
+            }
+            for (int q = 0; q < 50; q++) {
+                double angle = random.nextDouble(Math.PI * 2);
+                index.raycast(random.nextInt(1024), random.nextInt(768), (float) Math.cos(angle), (float) Math.sin(angle), 400, hit);
+            }
+        }
+        SpatialIndexStats stats = index.getStats();
+        System.out.printf("%s %s: 更新 %.3f ms/步, 查询 %.3f ms/步 (%s)%n", clustered ? "成团" : "大物体+子弹",
+            index.getName(), stats.getUpdateNanos() / 1e6 / ticks, stats.getQueryNanos() / 1e6 / ticks, stats);
+    }
+}
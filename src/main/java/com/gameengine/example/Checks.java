@@ -0,0 +1,419 @@
+package com.gameengine.example;
+
+import com.gameengine.components.BulletComponent;
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.AvoidanceSolver;
+import com.gameengine.core.Broadphase;
+import com.gameengine.core.ContactBuffer;
+import com.gameengine.core.DynamicAabbTree;
+import com.gameengine.core.EntityHandle;
+import com.gameengine.core.GameEngine;
+import com.gameengine.core.GameObject;
+import com.gameengine.core.JobSystem;
+import com.gameengine.core.LooseQuadtreeIndex;
+import com.gameengine.core.PhysicsKernel;
+import com.gameengine.core.PhysicsSystem;
+import com.gameengine.core.ScalarPhysicsKernel;
+import com.gameengine.core.SpatialIndex;
+import com.gameengine.core.StateChecksum;
+import com.gameengine.core.UniformGridIndex;
+import com.gameengine.graphics.RenderBackend;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Scene;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * 可重复运行的自检，任一项失败时进程以非零状态退出。
+ * 用法：--check，全部在无窗口、虚拟时钟下运行。
+ */
+public final class Checks {
+    private Checks() {}
+
+    public static void main(String[] args) {
+        boolean ok = true;
+        ok &= kernelParity(42, 600);
+        ok &= threadParity(42, 600, 4);
+        ok &= spatialParity(20, 3_000);
+        ok &= steadyStateAllocation(42, 6_000, 3_000, 3);
+        System.out.println(ok ? "全部检查通过" : "检查失败");
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * 预热 warmup 步后按 ticks 步一段测量主线程上的分配，某一段每步都是 0 字节即通过，最多测 windows 段。
+     * JIT 反优化后重新编译期间偶尔有几十字节的分配，只会落在个别段里；
+     * 每步或周期性的分配会出现在每一段。场景中的 AI 数限制在预热的对象池大小以内：
+     * 人口持续增长时对象池要新建对象，各种缓冲也会按新的峰值扩容，这些分配不属于稳定期。
+     * 只检查默认的标量内核。
+     */
+    static boolean steadyStateAllocation(long seed, int warmup, int ticks, int windows) {
+        GameEngine engine = new GameEngine(1024, 768, "游戏引擎", RenderBackend.HEADLESS);
+        engine.setDeterministic(seed);
+        engine.setVirtualClock(true);
+        engine.setTickLimit(warmup + (long) ticks * windows + 1);
+        // 每段分配非零的步数与字节数；测量期间不打印，避免输出本身的分配
+        long[] nonZero = new long[windows], bytes = new long[windows];
+        int[] measured = new int[1];
+        GameScene scene = new GameScene(engine) {
+            @Override
+            public void update(float deltaTime) {
+                // 本步开始时读到的是上一步的分配量
+                long step = engine.getTickCount() - 1;
+                if (step > warmup) {
+                    int window = (int) ((step - warmup - 1) / ticks);
+                    long allocated = engine.getLastStepAllocatedBytes();
+                    if (allocated != 0) {
+                        nonZero[window]++;
+                        bytes[window] += allocated;
+                    }
+                    measured[0] = window + 1;
+                    if ((step - warmup) % ticks == 0 && nonZero[window] == 0) engine.stop();
+                }
+                super.update(deltaTime);
+            }
+        };
+        scene.setMaxAIPlayers(32);
+        engine.setScene(scene);
+        engine.run();
+        engine.cleanup();
+
+        boolean ok = false;
+        for (int w = 0; w < measured[0]; w++) {
+            boolean clean = nonZero[w] == 0 && engine.getLastStepAllocatedBytes() >= 0;
+            ok |= clean;
+            System.out.printf("稳定期分配 第 %d 段 %d 步: 非零 %d 步共 %d 字节%s%n", w + 1, ticks, nonZero[w], bytes[w],
+                clean ? " -> 通过" : "");
+        }
+        if (!ok) System.out.println("稳定期分配 -> 失败");
+        return ok;
+    }
+
+    /**
+     * 标量与向量内核的结果必须逐位相同：同一局游戏每步的校验和，
+     * 以及一万个物体（四分之一是会出界的子弹）的合成场景。向量内核不可用时跳过。
+     */
+    static boolean kernelParity(long seed, int ticks) {
+        PhysicsKernel vector = PhysicsKernel.createVector();
+        if (vector.lanes() == 1) {
+            System.out.println("内核一致: 向量内核不可用（需要 --add-modules jdk.incubator.vector），跳过");
+            return true;
+        }
+        int workers = JobSystem.defaultParallelism();
+        boolean game = gameChecksum(seed, ticks, new ScalarPhysicsKernel(), workers, true)
+            == gameChecksum(seed, ticks, vector, workers, true);
+        boolean bodies = bodiesChecksum(new ScalarPhysicsKernel(), null, 10_000, ticks)
+            == bodiesChecksum(vector, null, 10_000, ticks);
+        boolean ok = game && bodies;
+        System.out.printf("内核一致: scalar 与 %s, 游戏 %d 步%s, 合成场景%s -> %s%n", vector.getName(), ticks,
+            game ? "相同" : "不同", bodies ? "相同" : "不同", ok ? "通过" : "失败");
+        return ok;
+    }
+
+    /**
+     * 结果不能随线程数变化：1 个工作线程且系统按注册顺序串行，与 workers 个工作线程且系统并行，
+     * 同一局游戏每步的校验和相同；合成场景的物理、宽相和避让在串行与并行下逐位相同。
+     * 游戏里实体少，多数 parallelFor 达不到切块的门槛，并行路径主要靠合成场景覆盖。
+     */
+    static boolean threadParity(long seed, int ticks, int workers) {
+        boolean game = gameChecksum(seed, ticks, new ScalarPhysicsKernel(), 1, false)
+            == gameChecksum(seed, ticks, new ScalarPhysicsKernel(), workers, true);
+        JobSystem jobs = new JobSystem(workers);
+        boolean bodies = bodiesChecksum(new ScalarPhysicsKernel(), null, 10_000, ticks / 4)
+            == bodiesChecksum(new ScalarPhysicsKernel(), jobs, 10_000, ticks / 4);
+        boolean agents = agentsParity(jobs, 5_000, ticks / 20);
+        jobs.shutdown();
+        boolean ok = game && bodies && agents;
+        System.out.printf("线程数无关: 1 与 %d 个工作线程, 游戏 %d 步%s, 物理%s, 宽相与避让%s -> %s%n", workers, ticks,
+            game ? "相同" : "不同", bodies ? "相同" : "不同", agents ? "相同" : "不同", ok ? "通过" : "失败");
+        return ok;
+    }
+
+    // 无窗口跑 ticks 步游戏，把每步的状态校验和折叠成一个值
+    private static long gameChecksum(long seed, int ticks, PhysicsKernel kernel, int workers, boolean parallelSystems) {
+        GameEngine engine = new GameEngine(1024, 768, "游戏引擎", RenderBackend.HEADLESS, workers);
+        engine.setDeterministic(seed);
+        engine.setVirtualClock(true);
+        engine.setTickLimit(ticks);
+        long[] folded = new long[1];
+        GameScene scene = new GameScene(engine) {
+            @Override
+            public void update(float deltaTime) {
+                // 物理系统在第一步之前创建；之后每步开始时读到上一步的校验和
+                if (engine.getTickCount() == 1) engine.getPhysicsSystem().setKernel(kernel);
+                else folded[0] = folded[0] * 31 + engine.getStateChecksum();
+                super.update(deltaTime);
+            }
+        };
+        scene.getSystems().setParallel(parallelSystems);
+        engine.setScene(scene);
+        engine.run();
+        folded[0] = folded[0] * 31 + engine.getStateChecksum();
+        engine.cleanup();
+        return folded[0];
+    }
+
+    // 只跑物理系统，每步折叠状态校验和与仍然存活的物体数
+    private static long bodiesChecksum(PhysicsKernel kernel, JobSystem jobs, int count, int ticks) {
+        Scene scene = new Scene("KernelCheck");
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < count; i++) {
+            GameObject body = new GameObject("Body");
+            body.addComponent(new TransformComponent(new Vector2(random.nextInt(1024), random.nextInt(768))));
+            PhysicsComponent physics = body.addComponent(new PhysicsComponent(1f));
+            physics.setVelocity((float) random.nextDouble(-400, 400), (float) random.nextDouble(-400, 400));
+            physics.setFriction(random.nextBoolean() ? 1f : 0.97f);
+            if (i % 4 == 0) body.addComponent(new BulletComponent(0, null));
+            scene.addGameObject(body);
+        }
+        scene.update(0f);
+        PhysicsSystem physics = new PhysicsSystem(scene, 1024, 768, jobs);
+        physics.setKernel(kernel);
+        List<GameObject> objects = scene.getGameObjects();
+        long folded = 0;
+        for (int t = 0; t < ticks; t++) {
+            physics.update(1f / 60f);
+            int alive = 0;
+            for (int i = 0; i < objects.size(); i++) {
+                if (objects.get(i).isActive()) alive++;
+            }
+            folded = (folded * 31 + StateChecksum.compute(scene.getStorage())) * 31 + alive;
+        }
+        return folded;
+    }
+
+    /**
+     * 同一批 AI 每步先串行、再并行各算一次：宽相的接触序列必须相同；
+     * 避让从同一组速度出发，两次结果按位比较。之后按并行的速度移动一步。
+     * 两边都必须真的走了并行路径，否则视为失败。
+     */
+    private static boolean agentsParity(JobSystem jobs, int count, int ticks) {
+        Scene scene = new Scene("ThreadCheck");
+        SplittableRandom random = new SplittableRandom(2);
+        List<GameObject> agents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameObject agent = new GameObject("Agent");
+            agent.addComponent(new TransformComponent(new Vector2(random.nextInt(1024), random.nextInt(768))));
+            agent.addComponent(new PhysicsComponent(1f))
+                .setVelocity((float) random.nextDouble(-100, 100), (float) random.nextDouble(-100, 100));
+            agent.addComponent(new ColliderComponent(6f, 1 << (i % 3)));
+            scene.addGameObject(agent);
+            agents.add(agent);
+        }
+        scene.update(0f);
+        scene.getStorage().swapBuffers();
+
+        Broadphase serialBroadphase = new Broadphase(scene, null), parallelBroadphase = new Broadphase(scene, jobs);
+        AvoidanceSolver serialSolver = new AvoidanceSolver(null), parallelSolver = new AvoidanceSolver(jobs);
+        float[] vx = new float[count], vy = new float[count], serialVx = new float[count], serialVy = new float[count];
+        float dt = 1f / 60f;
+        boolean same = true, parallel = true;
+        for (int t = 0; t < ticks && same; t++) {
+            serialBroadphase.update(dt);
+            parallelBroadphase.update(dt);
+            same = sameContacts(serialBroadphase.getContacts(), parallelBroadphase.getContacts());
+
+            for (int i = 0; i < count; i++) {
+                PhysicsComponent body = agents.get(i).getComponent(PhysicsComponent.class);
+                vx[i] = body.getVelocityX();
+                vy[i] = body.getVelocityY();
+            }
+            serialSolver.solve(agents, dt);
+            for (int i = 0; i < count; i++) {
+                PhysicsComponent body = agents.get(i).getComponent(PhysicsComponent.class);
+                serialVx[i] = body.getVelocityX();
+                serialVy[i] = body.getVelocityY();
+                body.setVelocity(vx[i], vy[i]);
+            }
+            parallelSolver.solve(agents, dt);
+            parallel &= parallelSolver.wasParallel();
+            for (int i = 0; i < count && same; i++) {
+                GameObject agent = agents.get(i);
+                PhysicsComponent body = agent.getComponent(PhysicsComponent.class);
+                same = Float.floatToRawIntBits(body.getVelocityX()) == Float.floatToRawIntBits(serialVx[i])
+                    && Float.floatToRawIntBits(body.getVelocityY()) == Float.floatToRawIntBits(serialVy[i]);
+                TransformComponent transform = agent.getComponent(TransformComponent.class);
+                transform.setXY(transform.getX() + body.getVelocityX() * dt, transform.getY() + body.getVelocityY() * dt);
+            }
+            scene.getStorage().swapBuffers();
+        }
+        if (!parallel) System.out.println("宽相与避让: 没有走并行路径");
+        return same && parallel;
+    }
+
+    private static boolean sameContacts(ContactBuffer a, ContactBuffer b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.first(i) != b.first(i) || a.second(i) != b.second(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 三种空间索引与暴力遍历的结果必须相同：随机插入、移动、移除（含槽位复用和清空），
+     * 每 10 次修改比较条目数、区域查询、半径查询和射线查询。包围盒有小的也有跨越全场的大盒，
+     * 查询可以超出场地。
+     */
+    static boolean spatialParity(int seeds, int steps) {
+        boolean ok = true;
+        for (int seed = 1; seed <= seeds && ok; seed++) {
+            SpatialIndex[] indexes = {
+                new UniformGridIndex(32f), new LooseQuadtreeIndex(0, 0, 1024, 6), new DynamicAabbTree(4f)
+            };
+            for (SpatialIndex index : indexes) {
+                String mismatch = spatialMismatch(index, seed, steps);
+                if (mismatch != null) {
+                    System.out.printf("空间索引一致: %s 种子 %d %s -> 失败%n", index.getName(), seed, mismatch);
+                    ok = false;
+                    break;
+                }
+            }
+        }
+        if (ok) System.out.printf("空间索引一致: 网格、松散四叉树、AABB 树各 %d 个种子 %d 次修改 -> 通过%n", seeds, steps);
+        return ok;
+    }
+
+    // 返回第一处不一致的描述，全部一致时返回 null
+    private static String spatialMismatch(SpatialIndex index, int seed, int steps) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int slots = 300;
+        long[] handles = new long[slots];
+        int[] generations = new int[slots];
+        float[][] boxes = new float[slots][];
+        for (int step = 0; step < steps; step++) {
+            int slot = random.nextInt(slots);
+            int op = random.nextInt(10);
+            if (op < 2 && handles[slot] != EntityHandle.NONE) {
+                index.remove(handles[slot]);
+                handles[slot] = EntityHandle.NONE;
+                boxes[slot] = null;
+            } else if (op < 4 && handles[slot] != EntityHandle.NONE && random.nextBoolean()) {
+                // 槽位被新一代实体复用，insert 替换旧条目
+                handles[slot] = EntityHandle.pack(slot, ++generations[slot]);
+                boxes[slot] = randomBox(random);
+                float[] b = boxes[slot];
+                index.insert(handles[slot], b[0], b[1], b[2], b[3]);
+            } else {
+                if (handles[slot] == EntityHandle.NONE) handles[slot] = EntityHandle.pack(slot, ++generations[slot]);
+                boxes[slot] = boxes[slot] != null && random.nextInt(3) > 0 ? nudge(boxes[slot], random) : randomBox(random);
+                float[] b = boxes[slot];
+                index.move(handles[slot], b[0], b[1], b[2], b[3]);
+            }
+            if (step % 10 == 0) {
+                String mismatch = compareQueries(index, random, handles, boxes);
+                if (mismatch != null) return "第 " + step + " 次修改后" + mismatch;
+            }
+            if (step == steps / 2 && seed % 5 == 0) {
+                index.clear();
+                Arrays.fill(handles, EntityHandle.NONE);
+                Arrays.fill(boxes, null);
+            }
+        }
+        return null;
+    }
+
+    private static float[] randomBox(SplittableRandom random) {
+        float x = (float) random.nextDouble(-200, 1300), y = (float) random.nextDouble(-200, 1000);
+        float w = (float) (random.nextInt(20) == 0 ? random.nextDouble(0, 1500) : random.nextDouble(0, 30));
+        float h = (float) (random.nextInt(20) == 0 ? random.nextDouble(0, 600) : random.nextDouble(0, 30));
+        return new float[] { x, y, x + w, y + h };
+    }
+
+    private static float[] nudge(float[] box, SplittableRandom random) {
+        float dx = (float) random.nextDouble(-10, 10), dy = (float) random.nextDouble(-10, 10);
+        return new float[] { box[0] + dx, box[1] + dy, box[2] + dx, box[3] + dy };
+    }
+
+    private static String compareQueries(SpatialIndex index, SplittableRandom random, long[] handles, float[][] boxes) {
+        int live = 0;
+        for (long handle : handles) {
+            if (handle != EntityHandle.NONE) live++;
+        }
+        if (index.size() != live) return "条目数 " + index.size() + ", 应为 " + live;
+        Set<Long> got = new TreeSet<>(), expected = new TreeSet<>();
+        int[] calls = new int[1];
+        for (int q = 0; q < 5; q++) {
+            float x = (float) random.nextDouble(-300, 1400), y = (float) random.nextDouble(-300, 1100);
+            float maxX = x + (float) random.nextDouble(0, 400), maxY = y + (float) random.nextDouble(0, 400);
+            got.clear();
+            expected.clear();
+            calls[0] = 0;
+            index.queryAabb(x, y, maxX, maxY, handle -> { calls[0]++; got.add(handle); });
+            for (int s = 0; s < handles.length; s++) {
+                float[] b = boxes[s];
+                if (handles[s] != EntityHandle.NONE && b[2] >= x && b[0] <= maxX && b[3] >= y && b[1] <= maxY) {
+                    expected.add(handles[s]);
+                }
+            }
+            if (calls[0] != got.size()) return "区域查询重复回调";
+            if (!got.equals(expected)) return "区域查询 " + got + ", 应为 " + expected;
+
+            float radius = (float) random.nextDouble(0, 200);
+            got.clear();
+            expected.clear();
+            index.queryRadius(x, y, radius, got::add);
+            for (int s = 0; s < handles.length; s++) {
+                if (handles[s] == EntityHandle.NONE) continue;
+                float[] b = boxes[s];
+                float dx = x - Math.max(b[0], Math.min(x, b[2])), dy = y - Math.max(b[1], Math.min(y, b[3]));
+                if (dx * dx + dy * dy <= radius * radius) expected.add(handles[s]);
+            }
+            if (!got.equals(expected)) return "半径查询 " + got + ", 应为 " + expected;
+
+            // 也覆盖轴向射线和无限远
+            float dirX = (float) random.nextDouble(-1, 1), dirY = (float) random.nextDouble(-1, 1);
+            if (random.nextInt(5) == 0) dirX = 0;
+            else if (random.nextInt(5) == 0) dirY = 0;
+            if (dirX == 0 && dirY == 0) continue;
+            float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+            float maxDistance = random.nextInt(4) == 0 ? Float.POSITIVE_INFINITY : (float) random.nextDouble(0, 1500);
+            SpatialIndex.RayHit hit = new SpatialIndex.RayHit();
+            boolean any = index.raycast(x, y, dirX, dirY, maxDistance, hit);
+            float best = 0f;
+            int bestSlot = -1;
+            for (int s = 0; s < handles.length; s++) {
+                if (handles[s] == EntityHandle.NONE) continue;
+                float t = rayEnter(x, y, dirX / length, dirY / length, maxDistance, boxes[s]);
+                if (t >= 0 && (bestSlot < 0 || t < best)) {
+                    best = t;
+                    bestSlot = s;
+                }
+            }
+            if (any != (bestSlot >= 0)) return "射线查询" + (any ? "多报了命中" : "漏报了命中");
+            if (any && (hit.handle != handles[bestSlot] || hit.distance != best)) {
+                return "射线查询命中 " + hit.handle + " 距离 " + hit.distance + ", 应为 " + handles[bestSlot] + " 距离 " + best;
+            }
+        }
+        return null;
+    }
+
+    // 单位方向射线进入包围盒的距离（slab 法），不相交时返回 -1
+    private static float rayEnter(float ox, float oy, float dx, float dy, float maxDistance, float[] box) {
+        float near = 0f, far = maxDistance;
+        if (dx == 0) {
+            if (ox < box[0] || ox > box[2]) return -1;
+        } else {
+            float inv = 1f / dx;
+            float t1 = (box[0] - ox) * inv, t2 = (box[2] - ox) * inv;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) return -1;
+        }
+        if (dy == 0) {
+            if (oy < box[1] || oy > box[3]) return -1;
+        } else {
+            float inv = 1f / dy;
+            float t1 = (box[1] - oy) * inv, t2 = (box[3] - oy) * inv;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) return -1;
+        }
+        return near;
+    }
+}
@@ -16,20 +16,16 @@ public final class EntityFactory {
     public static GameObject createPlayerVisual(IRenderer renderer) {
         String id = "Player"; 
         return new GameObject(id) {
-            private Vector2 basePosition;
-            @Override
-            public void update(float dt) {
-                super.update(dt);
-                TransformComponent tc = getComponent(TransformComponent.class);
-                if (tc != null) basePosition = tc.getPosition();
-            }
             @Override
             public void render() {
-                if (basePosition == null) return;
-                renderer.drawRect(basePosition.x - 8, basePosition.y - 10, 16, 20, 1.0f, 0.0f, 0.0f, 1.0f);
-                renderer.drawRect(basePosition.x - 6, basePosition.y - 22, 12, 12, 1.0f, 0.5f, 0.0f, 1.0f);
-                renderer.drawRect(basePosition.x - 13, basePosition.y - 5, 6, 12, 1.0f, 0.8f, 0.0f, 1.0f);
-                renderer.drawRect(basePosition.x + 7, basePosition.y - 5, 6, 12, 0.0f, 1.0f, 0.0f, 1.0f);
+                TransformComponent tc = getComponent(TransformComponent.class);
+                if (tc == null) return;
+                float x = tc.getRenderX();
+                float y = tc.getRenderY();
+                renderer.drawRect(x - 8, y - 10, 16, 20, 1.0f, 0.0f, 0.0f, 1.0f);
+                renderer.drawRect(x - 6, y - 22, 12, 12, 1.0f, 0.5f, 0.0f, 1.0f);
+                renderer.drawRect(x - 13, y - 5, 6, 12, 1.0f, 0.8f, 0.0f, 1.0f);
+                renderer.drawRect(x + 7, y - 5, 6, 12, 0.0f, 1.0f, 0.0f, 1.0f);
             }
         };
     }
@@ -1,12 +1,34 @@
 package com.gameengine.example;
 
+import com.gameengine.core.EntityPool;
+import com.gameengine.core.FrameArena;
 import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.HeadlessRenderer;
 import com.gameengine.graphics.RenderBackend;
 
 public class Game {
     public static void main(String[] args) {
         System.out.println("启动游戏引擎...");
 
+        // --headless [步数] [种子]：无窗口、虚拟时钟直接运行游戏场景，给出种子时启用确定性模式
+        if (args.length > 0 && args[0].equals("--headless")) {
+            long ticks = args.length > 1 ? Long.parseLong(args[1]) : 3600;
+            Long seed = args.length > 2 ? Long.valueOf(args[2]) : null;
+            runHeadless(ticks, seed);
+            return;
+        }
+
+        // --check：运行自检，失败时非零退出
+        if (args.length > 0 && args[0].equals("--check")) {
+            Checks.main(args);
+            return;
+        }
+
+        // --bench-*：基准测试，见 Benchmarks
+        if (args.length > 0 && Benchmarks.run(args)) {
+            return;
+        }
+
         GameEngine engine = null;
         try {
             System.out.println("使用渲染后端: GPU");
@@ -24,6 +46,31 @@ public class Game {
 
         System.out.println("游戏结束");
     }
+
+    private static void runHeadless(long ticks, Long seed) {
+        System.out.println("使用渲染后端: HEADLESS, 步数: " + ticks);
+        GameEngine engine = new GameEngine(1024, 768, "游戏引擎", RenderBackend.HEADLESS);
+        if (seed != null) engine.setDeterministic(seed);
+        engine.setVirtualClock(true);
+        engine.setTickLimit(ticks);
+        GameScene scene = new GameScene(engine);
+        engine.setScene(scene);
+        long start = System.nanoTime();
+        engine.run();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("模拟 %d 步用时 %.3fs (%.0f 步/秒)%n", engine.getTickCount(), seconds, engine.getTickCount() / seconds);
+        if (seed != null) System.out.println("种子 " + seed + " 最终校验和: " + Long.toHexString(engine.getStateChecksum()));
+        System.out.println("最后一步分配 " + engine.getLastStepAllocatedBytes() + " 字节, FrameArena 累计新建 " + FrameArena.allocations() + " 个容器");
+        if (engine.getPhysicsSystem() != null) System.out.println(engine.getPhysicsSystem());
+        for (EntityPool pool : scene.getEntityPools()) System.out.println(pool);
+        System.out.println(engine.getFramePacer());
+        if (engine.getRenderer() instanceof HeadlessRenderer) {
+            HeadlessRenderer renderer = (HeadlessRenderer) engine.getRenderer();
+            System.out.println("Headless frames=" + renderer.getFrameCount() + " drawCalls=" + renderer.getDrawCallCount());
+        }
+        System.out.println(engine.getJobSystem());
+        engine.cleanup();
+    }
 }
 
 
@@ -1,13 +1,18 @@
 package com.gameengine.example;
 
+import com.gameengine.components.ColliderComponent;
 import com.gameengine.components.HealthComponent;
 import com.gameengine.components.PhysicsComponent;
 import com.gameengine.components.RenderComponent;
 import com.gameengine.components.ShootingComponent;
 import com.gameengine.components.TransformComponent;
+import com.gameengine.core.Broadphase;
+import com.gameengine.core.CollisionLayers;
+import com.gameengine.core.EntityPool;
 import com.gameengine.core.GameEngine;
 import com.gameengine.core.GameLogic;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.Tags;
 // import com.gameengine.core.ParticleSystem;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.math.Vector2;
@@ -17,7 +22,9 @@ import java.util.*;
 public class GameScene extends Scene {
     private final GameEngine engine;
     private IRenderer renderer;
-    private Random random;
+    private SplittableRandom random;
+    // 粒子系统的随机流，每个粒子系统从中再拆分一条
+    private SplittableRandom particleRandom;
     private float time;
     private GameLogic gameLogic;
     // private ParticleSystem playerParticles;
@@ -28,6 +35,10 @@ public class GameScene extends Scene {
     private float freezeTimer;
     private final float inputCooldown = 0.25f;
     private final float freezeDelay = 0.20f;
+    private static final String AI_POOL = "aiPlayers";
+    private EntityPool aiPool;
+    // 同时存在的 AI 上限，0 表示不限
+    private int maxAIPlayers;
 
     public GameScene(GameEngine engine) {
         super("GameScene");
@@ -38,14 +49,24 @@ public class GameScene extends Scene {
     public void initialize() {
         super.initialize();
         this.renderer = engine.getRenderer();
-        this.random = new Random();
+        this.random = engine.getRandomStreams().stream("GameScene");
+        this.particleRandom = engine.getRandomStreams().stream("ParticleSystem");
         this.time = 0;
         this.gameLogic = new GameLogic(this);
         this.gameLogic.setGameEngine(engine);
+        this.gameLogic.registerSystems(getSystems());
         this.waitingReturn = false;
         this.waitInputTimer = 0f;
         this.freezeTimer = 0f;
 
+        // 对象池：死亡的 AI 和过期子弹由场景自动回收
+        // 大量自动射击的 AI 按块并行更新，生成子弹延迟到阶段结束
+        setParallelUpdate(true);
+
+        aiPool = getEntityPool(AI_POOL, this::newAIPlayer);
+        aiPool.prewarm(32);
+        ShootingComponent.bulletPool(this).prewarm(128);
+
         createPlayer();
         //createAIPlayer();
         //createAIPlayers();
@@ -59,19 +80,18 @@ public class GameScene extends Scene {
         
     }
 
+    @Override
+    public Broadphase getBroadphase() {
+        return gameLogic != null ? gameLogic.getBroadphase() : null;
+    }
+
     @Override
     public void update(float deltaTime) {
+        // 游戏逻辑作为系统在 super.update 中由调度器执行
+        gameLogic.beginTick();
+        boolean wasGameOver = gameLogic.isGameOver();
         super.update(deltaTime);
         time += deltaTime;
-
-        gameLogic.handlePlayerInput(deltaTime);
-        gameLogic.handleAIPlayerMovement(deltaTime);
-        gameLogic.handleAIPlayerAvoidance(deltaTime);
-
-        boolean wasGameOver = gameLogic.isGameOver();
-        gameLogic.checkCollisions();
-        gameLogic.checkBulletCollisions();
-        gameLogic.cleanupDeadObjects();
         /* 
         if (gameLogic.isGameOver() && !wasGameOver) {
             GameObject player = gameLogic.getUserPlayer();
@@ -94,7 +114,7 @@ public class GameScene extends Scene {
                     cfg.burstGMin = 0.0f;
                     cfg.burstGMax = 0.05f;
                     cfg.burstB = 0.0f;
-                    ParticleSystem explosion = new ParticleSystem(renderer, transform.getPosition(), cfg);
+                    ParticleSystem explosion = new ParticleSystem(renderer, transform.getPosition(), cfg, particleRandom.split());
                     explosion.burst(180);
                     collisionParticles.add(explosion);
                     waitingReturn = true;
@@ -132,7 +152,7 @@ public class GameScene extends Scene {
         
         
         // 只有在游戏未结束时生成AI
-        if (!gameLogic.isGameOver() && time >= 1.0f) {
+        if (!gameLogic.isGameOver() && time >= 1.0f && (maxAIPlayers == 0 || aiPool.getInUseCount() < maxAIPlayers)) {
             createAIPlayer();
             time = 0;
         }
@@ -163,7 +183,7 @@ public class GameScene extends Scene {
                     if (particles == null) {
                         TransformComponent transform = aiPlayer.getComponent(TransformComponent.class);
                         if (transform != null) {
-                            particles = new ParticleSystem(renderer, transform.getPosition(), ParticleSystem.Config.light());
+                            particles = new ParticleSystem(renderer, transform.getPosition(), ParticleSystem.Config.light(), particleRandom.split());
                             particles.setActive(true);
                             aiPlayerParticles.put(aiPlayer, particles);
                         }
@@ -259,13 +279,16 @@ public class GameScene extends Scene {
     
     private void createPlayer() {
         GameObject player = new GameObject("Player") {
-            private Vector2 basePosition;
-
             @Override
             public void update(float deltaTime) {
                 super.update(deltaTime);
                 updateComponents(deltaTime);
-                updateBodyParts();
+            }
+
+            // update 只更新组件，可以并行
+            @Override
+            public boolean isThreadConfined() {
+                return componentsThreadConfined();
             }
 
             @Override
@@ -275,26 +298,24 @@ public class GameScene extends Scene {
                 renderComponents();
             }
 
-            private void updateBodyParts() {
-                TransformComponent transform = getComponent(TransformComponent.class);
-                if (transform != null) {
-                    basePosition = transform.getPosition();
-                }
-            }
-
             private void renderBodyParts() {
-                if (basePosition == null) return;
+                TransformComponent transform = getComponent(TransformComponent.class);
+                if (transform == null) return;
+                // 插值后的位置，渲染频率高于模拟频率时也平滑
+                float x = transform.getRenderX();
+                float y = transform.getRenderY();
 
                 // 身体和装饰
-                renderer.drawRect(basePosition.x - 8, basePosition.y - 10, 16, 20, 1f, 0f, 0f, 1f);
-                renderer.drawRect(basePosition.x - 6, basePosition.y - 22, 12, 12, 1f, 0.5f, 0f, 1f);
-                renderer.drawRect(basePosition.x - 13, basePosition.y - 5, 6, 12, 1f, 0.8f, 0f, 1f);
-                renderer.drawRect(basePosition.x + 7, basePosition.y - 5, 6, 12, 0f, 1f, 0f, 1f);
+                renderer.drawRect(x - 8, y - 10, 16, 20, 1f, 0f, 0f, 1f);
+                renderer.drawRect(x - 6, y - 22, 12, 12, 1f, 0.5f, 0f, 1f);
+                renderer.drawRect(x - 13, y - 5, 6, 12, 1f, 0.8f, 0f, 1f);
+                renderer.drawRect(x + 7, y - 5, 6, 12, 0f, 1f, 0f, 1f);
             }
         };
 
         //设定场景
         player.setScene(this);
+        player.addTag(Tags.PLAYER);
 
         // Transform
         player.addComponent(new TransformComponent(new Vector2(renderer.getWidth() / 2f, renderer.getHeight() / 2f)));
@@ -308,42 +329,72 @@ public class GameScene extends Scene {
         health.setShowHealthBar(true);
         health.setHealthBarSize(30, 6);
 
+        // Collider
+        player.addComponent(new ColliderComponent(15, CollisionLayers.PLAYER));
+
         // Shooting（手动射击）
         ShootingComponent shooting = player.addComponent(new ShootingComponent(1f, 200f, 15, false));
 
         addGameObject(player);
     }
 
+    // 限制同时存在的 AI 数量，人口不再增长后各容器的容量也会稳定下来
+    public void setMaxAIPlayers(int maxAIPlayers) {
+        this.maxAIPlayers = Math.max(0, maxAIPlayers);
+    }
+
     private void createAIPlayers() {
         for (int i = 0; i < 30; i++) {
             createAIPlayer();
         }
     }
 
-    private static int aiPlayerCount = 0;
     private void createAIPlayer() {
-        GameObject aiPlayer = new GameObject("AIPlayer"+aiPlayerCount++) {
+        GameObject aiPlayer = aiPool.acquire();
+
+        // 池命中时不分配：位置和速度按分量设置
+        float x, y, dx, dy;
+        do {
+            x = random.nextFloat() * renderer.getWidth();
+            y = random.nextFloat() * renderer.getHeight();
+            dx = x - renderer.getWidth() / 2f;
+            dy = y - renderer.getHeight() / 2f;
+        } while ((float) Math.sqrt(dx * dx + dy * dy) < 100);
+
+        aiPlayer.getComponent(TransformComponent.class).setXY(x, y);
+        float vx = (random.nextFloat() - 0.5f) * 150;
+        float vy = (random.nextFloat() - 0.5f) * 150;
+        aiPlayer.getComponent(PhysicsComponent.class).setVelocity(vx, vy);
+
+        addGameObject(aiPlayer);
+    }
+
+    // 池的工厂：只搭建组件，位置和初速度在 createAIPlayer 中设定
+    private GameObject newAIPlayer() {
+        GameObject aiPlayer = new GameObject("AIPlayer") {
             @Override
             public void update(float deltaTime) {
                 super.update(deltaTime);
                 updateComponents(deltaTime);
             }
 
+            // update 只更新组件，可以并行
+            @Override
+            public boolean isThreadConfined() {
+                return componentsThreadConfined();
+            }
+
             @Override
             public void render() {
                 renderComponents();
             }
         };
 
-        Vector2 position;
-        do {
-            position = new Vector2(random.nextFloat() * renderer.getWidth(), random.nextFloat() * renderer.getHeight());
-        } while (position.distance(new Vector2(renderer.getWidth() / 2f, renderer.getHeight() / 2f)) < 100);
-
         aiPlayer.setScene(this);
+        aiPlayer.addTag(Tags.ENEMY);
 
         // Transform
-        aiPlayer.addComponent(new TransformComponent(position));
+        aiPlayer.addComponent(new TransformComponent());
 
         // Render
         RenderComponent rc = aiPlayer.addComponent(new RenderComponent(
@@ -355,7 +406,6 @@ public class GameScene extends Scene {
 
         // Physics
         PhysicsComponent physics = aiPlayer.addComponent(new PhysicsComponent(0.5f));
-        physics.setVelocity(new Vector2((random.nextFloat() - 0.5f) * 150, (random.nextFloat() - 0.5f) * 150));
         physics.setFriction(0.98f);
 
         // Health
@@ -363,10 +413,13 @@ public class GameScene extends Scene {
         health.setShowHealthBar(true);
         health.setHealthBarSize(30, 6);
 
+        // Collider
+        aiPlayer.addComponent(new ColliderComponent(15, CollisionLayers.ENEMY));
+
         // Shooting（自动射击玩家）
         ShootingComponent shooting = aiPlayer.addComponent(new ShootingComponent(5f, 100f, 10, true));
 
-        addGameObject(aiPlayer);
+        return aiPlayer;
     }
 
 
@@ -377,15 +430,20 @@ public class GameScene extends Scene {
         }
     }
 
-    private static int decorationCount = 0;
     private void createDecoration() {
-        GameObject decoration = new GameObject("Decoration"+decorationCount++) {
+        GameObject decoration = new GameObject("Decoration") {
             @Override
             public void update(float deltaTime) {
                 super.update(deltaTime);
                 updateComponents(deltaTime);
             }
 
+            // update 只更新组件，可以并行
+            @Override
+            public boolean isThreadConfined() {
+                return componentsThreadConfined();
+            }
+
             @Override
             public void render() {
                 renderComponents();
@@ -399,6 +457,7 @@ public class GameScene extends Scene {
 
         //
         decoration.setScene(this);
+        decoration.addTag(Tags.DECORATION);
         decoration.addComponent(new TransformComponent(position));
 
         RenderComponent render = decoration.addComponent(new RenderComponent(
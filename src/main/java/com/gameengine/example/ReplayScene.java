@@ -24,11 +24,14 @@ public class ReplayScene extends Scene {
             float w, h;
             float r = 0.9f, g = 0.9f, b = 0.2f, a = 1.0f; // 默认颜色
             String id;
+            String kind; // Player/AIPlayer/Bullet/Decoration，旧录像没有该字段时取 id
             float hp = 100f;  
             float maxHp = 100f; 
         }
         double t;
         List<EntityInfo> entities = new ArrayList<>();
+        // 加载时建好的 id 索引，逐帧插值时不再临时建表
+        Map<String, EntityInfo> byId = new HashMap<>();
     }
 
     private final List<Keyframe> keyframes = new ArrayList<>();
@@ -109,11 +112,11 @@ public class ReplayScene extends Scene {
 
         for (Map.Entry<String, GameObject> entry : objectMap.entrySet()) {
             GameObject obj = entry.getValue();
-            Keyframe.EntityInfo ei = findEntityInfo(obj.getName());
+            Keyframe.EntityInfo ei = findEntityInfo(entry.getKey());
             if (ei == null) continue;
 
             // 只给 Player 和 AIPlayer 显示血条
-            if (!ei.id.equalsIgnoreCase("Player") && !ei.id.startsWith("AIPlayer")) continue;
+            if (!ei.kind.equalsIgnoreCase("Player") && !ei.kind.startsWith("AIPlayer")) continue;
 
             // 血条位置在对象上方
             float barWidth = 30f;
@@ -121,7 +124,7 @@ public class ReplayScene extends Scene {
             TransformComponent tc = obj.getComponent(TransformComponent.class);
             Vector2 pos = (tc != null ? tc.getPosition() : ei.pos);
             float x,y;
-            if(ei.id.equalsIgnoreCase("Player"))
+            if(ei.kind.equalsIgnoreCase("Player"))
             {
                 x = pos.x - barWidth / 2f;
                 y= pos.y - 30;
@@ -151,67 +154,32 @@ public class ReplayScene extends Scene {
         keyframes.clear();
         com.gameengine.recording.RecordingStorage storage = new com.gameengine.recording.FileRecordingStorage();
         try {
+            // delta 行只含变化的实体，在上一关键帧的基础上合并出完整的实体表
+            Map<String, Keyframe.EntityInfo> current = new LinkedHashMap<>();
             for (String line : storage.readLines(path)) {
-                if (!line.contains("\"type\":\"keyframe\"")) continue;
+                boolean full = line.contains("\"type\":\"keyframe\"");
+                boolean delta = line.contains("\"type\":\"delta\"");
+                if (!full && !delta) continue;
+                if (delta && keyframes.isEmpty()) continue; // 没有基准快照的 delta 无法还原
 
                 Keyframe kf = new Keyframe();
                 kf.t = com.gameengine.recording.RecordingJson.parseDouble(
                         com.gameengine.recording.RecordingJson.field(line, "t")
                 );
 
+                if (full) current.clear();
                 String entitiesArr = com.gameengine.recording.RecordingJson.field(line, "entities");
-                if (entitiesArr != null && entitiesArr.startsWith("[") && entitiesArr.endsWith("]")) {
-                    // 去掉首尾 []
-                    entitiesArr = entitiesArr.substring(1, entitiesArr.length() - 1).trim();
-                    String[] parts = com.gameengine.recording.RecordingJson.splitTopLevel(entitiesArr);
-
-                    for (String p : parts) {
-                        Keyframe.EntityInfo ei = new Keyframe.EntityInfo();
-                        ei.id = com.gameengine.recording.RecordingJson.stripQuotes(
-                                com.gameengine.recording.RecordingJson.field(p, "id")
-                        );
-
-                        double x = com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "x")
-                        );
-                        double y = com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "y")
-                        );
-                        ei.pos = new Vector2((float) x, (float) y);
-
-                        ei.rt = com.gameengine.recording.RecordingJson.stripQuotes(
-                                com.gameengine.recording.RecordingJson.field(p, "rt")
-                        );
-
-                        ei.w = (float) com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "w")
-                        );
-                        ei.h = (float) com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "h")
-                        );
-
-                        // ===== 解析 color 字段 =====
-                        String colorField = com.gameengine.recording.RecordingJson.field(p, "color");
-                        if (colorField != null && colorField.startsWith("[") && colorField.endsWith("]")) {
-                            String content = colorField.substring(1, colorField.length() - 1).trim();
-                            String[] cs = content.split(",");
-                            try {
-                                if (cs.length >= 1) ei.r = Float.parseFloat(cs[0].trim());
-                                if (cs.length >= 2) ei.g = Float.parseFloat(cs[1].trim());
-                                if (cs.length >= 3) ei.b = Float.parseFloat(cs[2].trim());
-                                if (cs.length >= 4) ei.a = Float.parseFloat(cs[3].trim());
-                            } catch (Exception ignored) {}
-                        }
-
-                        ei.hp = (float) com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "hp"));
-                        ei.maxHp = (float) com.gameengine.recording.RecordingJson.parseDouble(
-                                com.gameengine.recording.RecordingJson.field(p, "maxHp"));
-
-                        kf.entities.add(ei);
-                    }
+                for (String p : splitArray(entitiesArr)) {
+                    Keyframe.EntityInfo ei = parseEntity(p);
+                    current.put(ei.id, ei);
+                }
+                if (delta) {
+                    String removedArr = com.gameengine.recording.RecordingJson.field(line, "removed");
+                    for (String id : splitArray(removedArr)) current.remove(id.trim());
                 }
 
+                kf.entities.addAll(current.values());
+                kf.byId.putAll(current);
                 keyframes.add(kf);
             }
         } catch (Exception ignored) {}
@@ -219,6 +187,63 @@ public class ReplayScene extends Scene {
         keyframes.sort((k1, k2) -> Double.compare(k1.t, k2.t));
     }
 
+    // 去掉首尾 [] 并按顶层逗号切分；字段缺失或为空数组时返回空
+    private static String[] splitArray(String arr) {
+        if (arr == null || !arr.startsWith("[") || !arr.endsWith("]")) return new String[0];
+        String content = arr.substring(1, arr.length() - 1).trim();
+        if (content.isEmpty()) return new String[0];
+        return com.gameengine.recording.RecordingJson.splitTopLevel(content);
+    }
+
+    private static Keyframe.EntityInfo parseEntity(String p) {
+        Keyframe.EntityInfo ei = new Keyframe.EntityInfo();
+        ei.id = com.gameengine.recording.RecordingJson.stripQuotes(
+                com.gameengine.recording.RecordingJson.field(p, "id")
+        );
+        ei.kind = com.gameengine.recording.RecordingJson.stripQuotes(
+                com.gameengine.recording.RecordingJson.field(p, "kind")
+        );
+        if (ei.kind == null) ei.kind = ei.id;
+
+        double x = com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "x")
+        );
+        double y = com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "y")
+        );
+        ei.pos = new Vector2((float) x, (float) y);
+
+        ei.rt = com.gameengine.recording.RecordingJson.stripQuotes(
+                com.gameengine.recording.RecordingJson.field(p, "rt")
+        );
+
+        ei.w = (float) com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "w")
+        );
+        ei.h = (float) com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "h")
+        );
+
+        // ===== 解析 color 字段 =====
+        String colorField = com.gameengine.recording.RecordingJson.field(p, "color");
+        if (colorField != null && colorField.startsWith("[") && colorField.endsWith("]")) {
+            String content = colorField.substring(1, colorField.length() - 1).trim();
+            String[] cs = content.split(",");
+            try {
+                if (cs.length >= 1) ei.r = Float.parseFloat(cs[0].trim());
+                if (cs.length >= 2) ei.g = Float.parseFloat(cs[1].trim());
+                if (cs.length >= 3) ei.b = Float.parseFloat(cs[2].trim());
+                if (cs.length >= 4) ei.a = Float.parseFloat(cs[3].trim());
+            } catch (Exception ignored) {}
+        }
+
+        ei.hp = (float) com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "hp"));
+        ei.maxHp = (float) com.gameengine.recording.RecordingJson.parseDouble(
+                com.gameengine.recording.RecordingJson.field(p, "maxHp"));
+        return ei;
+    }
+
 
     private Keyframe.EntityInfo findEntityInfo(String id) {
         if (keyframes.isEmpty()) return null;
@@ -231,21 +256,14 @@ public class ReplayScene extends Scene {
             }
         }
 
-        for (Keyframe.EntityInfo ei : kf.entities) {
-            if (ei.id.equals(id)) return ei;
-        }
-        return null;
+        return kf.byId.get(id);
     }
 
 
     private void updateDynamicObjects(Keyframe a, Keyframe b, float u) {
-        // 将 b 的实体按 id 做 map
-        Map<String, Keyframe.EntityInfo> bMap = new HashMap<>();
-        for (Keyframe.EntityInfo ei : b.entities) bMap.put(ei.id, ei);
-
         // 更新 a.entities 对应的对象
         for (Keyframe.EntityInfo eiA : a.entities) {
-            Keyframe.EntityInfo eiB = bMap.get(eiA.id);
+            Keyframe.EntityInfo eiB = b.byId.get(eiA.id);
             GameObject obj = objectMap.get(eiA.id);
 
             if (obj == null) {
@@ -260,7 +278,7 @@ public class ReplayScene extends Scene {
             float y = (1 - u) * posA.y + u * posB.y;
 
             TransformComponent tc = obj.getComponent(TransformComponent.class);
-            if (tc != null) tc.setPosition(new Vector2(x, y));
+            if (tc != null) tc.setXY(x, y);
         }
 
         // b.entities 中新出现的对象
@@ -274,16 +292,11 @@ public class ReplayScene extends Scene {
 
         // 移除 a 和 b 中不再出现的对象（死亡）
         // 移除不再出现的对象
-        Set<String> aliveIds = new HashSet<>();
-        for (Keyframe.EntityInfo ei : b.entities) aliveIds.add(ei.id);
-
-        // 保留 Player
-        aliveIds.add("Player"); 
-
         Iterator<Map.Entry<String, GameObject>> it = objectMap.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<String, GameObject> entry = it.next();
-            if (!aliveIds.contains(entry.getKey())) {
+            // 保留 Player
+            if (!b.byId.containsKey(entry.getKey()) && !"Player".equalsIgnoreCase(entry.getValue().getName())) {
                 entry.getValue().setActive(false);
                 it.remove();
             }
@@ -294,23 +307,23 @@ public class ReplayScene extends Scene {
     private GameObject buildObjectFromEntity(Keyframe.EntityInfo ei) {
         GameObject obj;
 
-        if ("Player".equalsIgnoreCase(ei.id)) {
+        if ("Player".equalsIgnoreCase(ei.kind)) {
             // 唯一玩家
             obj = com.gameengine.example.EntityFactory.createPlayerVisual(renderer);
         } 
-        else if (ei.id.startsWith("AIPlayer")) {
+        else if (ei.kind.startsWith("AIPlayer")) {
             // AI 玩家，带编号
             obj = com.gameengine.example.EntityFactory.createAIVisual(renderer, ei.w, ei.h, ei.r, ei.g, ei.b, ei.a);
         } 
-        else if (ei.id.startsWith("Bullet")) {
+        else if (ei.kind.startsWith("Bullet")) {
             // 子弹，带编号
             obj = com.gameengine.example.EntityFactory.createBulletVisual(renderer, ei.w, ei.h, ei.r, ei.g, ei.b, ei.a);
             
 
         } 
-        else if (ei.id.startsWith("Decoration")) {
+        else if (ei.kind.startsWith("Decoration")) {
             // 装饰物，带编号
-            obj = new GameObject(ei.id);
+            obj = new GameObject(ei.kind);
             obj.addComponent(new TransformComponent(new Vector2(ei.pos)));
             com.gameengine.components.RenderComponent rc = obj.addComponent(
                 new com.gameengine.components.RenderComponent(
@@ -326,7 +339,7 @@ public class ReplayScene extends Scene {
             obj = com.gameengine.example.EntityFactory.createAIVisual(renderer, Math.max(1, ei.w), Math.max(1, ei.h), ei.r, ei.g, ei.b, ei.a);
         }
 
-        obj.setName(ei.id);
+        obj.setName(ei.kind);
 
         // Transform 设置位置
         TransformComponent tc = obj.getComponent(TransformComponent.class);
@@ -527,6 +527,21 @@ public class GPURenderer implements IRenderer {
         }
     }
     
+    @Override
+    public void waitEvents(double timeoutSeconds) {
+        if (initialized && window != MemoryUtil.NULL) {
+            GLFW.glfwWaitEventsTimeout(Math.max(0, timeoutSeconds));
+        }
+    }
+    
+    @Override
+    public void setVSync(boolean enabled) {
+        if (initialized && window != MemoryUtil.NULL) {
+            GLFW.glfwMakeContextCurrent(window);
+            GLFW.glfwSwapInterval(enabled ? 1 : 0);
+        }
+    }
+    
     @Override
     public void cleanup() {
         for (Integer textureId : charTextures.values()) {
@@ -0,0 +1,87 @@
+package com.gameengine.graphics;
+
+/**
+ * 无窗口渲染器：不做任何绘制，只统计帧数和绘制调用，
+ * 用于服务器、CI 上的模拟与录制，以及不带 GPU 的基准测试。
+ */
+public class HeadlessRenderer implements IRenderer {
+    private final int width;
+    private final int height;
+    private final String title;
+    private boolean closeRequested;
+    private long frames;
+    private long drawCalls;
+
+    public HeadlessRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+    }
+
+    @Override
+    public void beginFrame() {}
+
+    @Override
+    public void endFrame() {
+        frames++;
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawText(float x, float y, String text, float r, float g, float b, float a) {
+        drawCalls++;
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return closeRequested;
+    }
+
+    // 没有窗口可关，外部用这个方法结束主循环
+    public void requestClose() {
+        closeRequested = true;
+    }
+
+    @Override
+    public void pollEvents() {}
+
+    @Override
+    public void cleanup() {}
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    public long getDrawCallCount() {
+        return drawCalls;
+    }
+}
@@ -1,5 +1,7 @@
 package com.gameengine.graphics;
 
+import java.util.concurrent.locks.LockSupport;
+
 public interface IRenderer {
     void beginFrame();
     void endFrame();
@@ -11,6 +13,15 @@ public interface IRenderer {
     
     boolean shouldClose();
     void pollEvents();
+    
+    // 阻塞等待窗口事件，最多 timeoutSeconds 秒；没有事件队列的后端默认轮询一次后休眠到超时，不空转
+    default void waitEvents(double timeoutSeconds) {
+        pollEvents();
+        if (timeoutSeconds > 0) LockSupport.parkNanos((long) (timeoutSeconds * 1_000_000_000L));
+    }
+    
+    // 垂直同步开关，不支持的后端忽略
+    default void setVSync(boolean enabled) {}
     void cleanup();
     
     int getWidth();
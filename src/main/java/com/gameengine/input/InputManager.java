@@ -1,5 +1,6 @@
 package com.gameengine.input;
 
+import com.gameengine.core.FrameArena;
 import com.gameengine.math.Vector2;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -101,8 +102,11 @@ public class InputManager {
         return !pressedKeys.isEmpty();
     }
 
-    public java.util.Set<Integer> getJustPressedKeysSnapshot() {
-        return new java.util.HashSet<>(justPressedKeys);
+    // 本步刚按下的键的副本，取自当前线程的 FrameArena，只在本步内有效
+    public Set<Integer> getJustPressedKeysSnapshot() {
+        Set<Integer> snapshot = FrameArena.get().set();
+        snapshot.addAll(justPressedKeys);
+        return snapshot;
     }
     
     public Vector2 getMousePosition() {
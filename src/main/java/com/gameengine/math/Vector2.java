@@ -18,10 +18,62 @@ public class Vector2 {
         this.y = other.y;
     }
     
+    public Vector2 set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+    
+    public Vector2 set(Vector2 other) {
+        return set(other.x, other.y);
+    }
+    
     public Vector2 add(Vector2 other) {
         return new Vector2(this.x + other.x, this.y + other.y);
     }
     
+    // 以下 *Local 方法原地修改并返回 this，热路径上不分配内存
+    public Vector2 addLocal(Vector2 other) {
+        return set(this.x + other.x, this.y + other.y);
+    }
+    
+    public Vector2 addLocal(float dx, float dy) {
+        return set(this.x + dx, this.y + dy);
+    }
+    
+    public Vector2 subtractLocal(Vector2 other) {
+        return set(this.x - other.x, this.y - other.y);
+    }
+    
+    public Vector2 scaleLocal(float scalar) {
+        return set(this.x * scalar, this.y * scalar);
+    }
+    
+    public Vector2 normalizeLocal() {
+        float mag = magnitude();
+        if (mag == 0) return set(0, 0);
+        return set(x / mag, y / mag);
+    }
+    
+    // 以下输出参数版本把结果写入 out 并返回 out
+    public Vector2 add(Vector2 other, Vector2 out) {
+        return out.set(this.x + other.x, this.y + other.y);
+    }
+    
+    public Vector2 subtract(Vector2 other, Vector2 out) {
+        return out.set(this.x - other.x, this.y - other.y);
+    }
+    
+    public Vector2 multiply(float scalar, Vector2 out) {
+        return out.set(this.x * scalar, this.y * scalar);
+    }
+    
+    public Vector2 normalize(Vector2 out) {
+        float mag = magnitude();
+        if (mag == 0) return out.set(0, 0);
+        return out.set(x / mag, y / mag);
+    }
+    
     public Vector2 subtract(Vector2 other) {
         return new Vector2(this.x - other.x, this.y - other.y);
     }
@@ -34,6 +86,10 @@ public class Vector2 {
         return (float) Math.sqrt(x * x + y * y);
     }
     
+    public float magnitudeSquared() {
+        return x * x + y * y;
+    }
+    
     public Vector2 normalize() {
         float mag = magnitude();
         if (mag == 0) return new Vector2(0, 0);
@@ -45,7 +101,13 @@ public class Vector2 {
     }
     
     public float distance(Vector2 other) {
-        return this.subtract(other).magnitude();
+        return (float) Math.sqrt(distanceSquared(other));
+    }
+    
+    public float distanceSquared(Vector2 other) {
+        float dx = this.x - other.x;
+        float dy = this.y - other.y;
+        return dx * dx + dy * dy;
     }
     
     @Override
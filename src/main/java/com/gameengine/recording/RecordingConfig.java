@@ -7,6 +7,8 @@ public class RecordingConfig {
     public float positionThreshold = 0.5f; // pixels
     public int quantizeDecimals = 2;
     public int queueCapacity = 2048;
+    // 每隔多少个关键帧写一次完整快照，其余只写变更（0 表示总是完整）
+    public int fullKeyframeEvery = 10;
 
     public RecordingConfig(String outputPath) {
         this.outputPath = outputPath;
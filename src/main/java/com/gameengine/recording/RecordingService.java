@@ -1,8 +1,12 @@
 package com.gameengine.recording;
 
 import com.gameengine.components.HealthComponent;
+import com.gameengine.components.RenderComponent;
 import com.gameengine.components.TransformComponent;
+import com.gameengine.core.EntityQuery;
+import com.gameengine.core.EntityStorage;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.JobSystem;
 import com.gameengine.input.InputManager;
 import com.gameengine.scene.Scene;
 import java.io.IOException;
@@ -24,6 +28,18 @@ public class RecordingService {
     private final double warmupSec = 0.1; // 等待一帧让场景对象完成初始化
     private final DecimalFormat qfmt;
     private Scene lastScene;
+    // 确定性模式下写入的会话种子与每步状态校验和
+    private Long sessionSeed;
+    private long stateChecksum;
+    private long tick;
+    // 关键帧序列化交给任务系统，和渲染重叠执行
+    private JobSystem jobs;
+    // 增量关键帧：上一关键帧时的变更刻，以及距上一个完整快照写了几个 delta
+    private long lastKeyframeTick = -1;
+    private EntityStorage lastKeyframeStorage;
+    private int keyframesSinceFull;
+    private EntityQuery recorded;
+    private EntityStorage recordedStorage;
 
     public RecordingService(RecordingConfig config) {
         this.config = config;
@@ -64,8 +80,10 @@ public class RecordingService {
         writerThread.start();
 
         // header
-        enqueue("{\"type\":\"header\",\"version\":1,\"w\":" + width + ",\"h\":" + height + "}");
+        String seed = sessionSeed != null ? ",\"seed\":" + sessionSeed : "";
+        enqueue("{\"type\":\"header\",\"version\":2,\"w\":" + width + ",\"h\":" + height + seed + "}");
         keyframeElapsed = 0.0;
+        lastKeyframeStorage = null;
     }
 
     public void stop() {
@@ -85,12 +103,14 @@ public class RecordingService {
         keyframeElapsed += deltaTime;
         sampleAccumulator += deltaTime;
         lastScene = scene;
+        tick++;
 
         // input events (sample at native frequency, but只写有justPressed)
         Set<Integer> just = input.getJustPressedKeysSnapshot();
         if (!just.isEmpty()) {
             StringBuilder sb = new StringBuilder();
-            sb.append("{\"type\":\"input\",\"t\":").append(qfmt.format(elapsed)).append(",\"keys\":[");
+            sb.append("{\"type\":\"input\",\"t\":").append(qfmt.format(elapsed))
+              .append(",\"tick\":").append(tick).append(",\"keys\":[");
             boolean first = true;
             for (Integer k : just) {
                 if (!first) sb.append(',');
@@ -105,70 +125,123 @@ public class RecordingService {
 
         // periodic keyframe（跳过开头暖机，避免空关键帧）
         if (elapsed >= warmupSec && keyframeElapsed >= config.keyframeIntervalSec) {
-            if (writeKeyframe(scene)) {
+            if (jobs != null) {
+                // 帧任务在下一步开始时等待完成，之后才会再次进入 update，任务里直接清零计时
+                jobs.submitForFrame(() -> {
+                    if (writeKeyframe(scene)) keyframeElapsed = 0.0;
+                });
+            } else if (writeKeyframe(scene)) {
                 keyframeElapsed = 0.0;
             }
         }
     }
 
+    /**
+     * 写一个关键帧。每隔 fullKeyframeEvery 个写完整快照，其余写 delta：
+     * 只包含上一关键帧之后加入或位置/血量/外观变化过的实体，以及期间移除的句柄。
+     */
     private boolean writeKeyframe(Scene scene) {
+        EntityStorage entities = scene.getStorage();
+        boolean full = lastKeyframeStorage != entities || config.fullKeyframeEvery <= 0
+            || keyframesSinceFull >= config.fullKeyframeEvery - 1;
         StringBuilder sb = new StringBuilder();
-        sb.append("{\"type\":\"keyframe\",\"t\":").append(qfmt.format(elapsed)).append(",\"entities\":[");
-        List<GameObject> objs = scene.getGameObjects();
-        boolean first = true;
+        sb.append("{\"type\":\"").append(full ? "keyframe" : "delta").append("\",\"t\":").append(qfmt.format(elapsed))
+          .append(",\"tick\":").append(tick);
+        if (sessionSeed != null) sb.append(",\"checksum\":").append(stateChecksum);
+        sb.append(",\"entities\":[");
         int count = 0;
-        for (GameObject obj : objs) {
-            TransformComponent tc = obj.getComponent(TransformComponent.class);
-            if (tc == null) continue;
-            float x = tc.getPosition().x;
-            float y = tc.getPosition().y;
-            if (!first) sb.append(',');
-            sb.append('{')
-              .append("\"id\":\"").append(obj.getName()).append("\",")
-              .append("\"x\":").append(qfmt.format(x)).append(',')
-              .append("\"y\":").append(qfmt.format(y));
-
-
-            
-            // 可选渲染信息（若对象带有 RenderComponent，则记录形状、尺寸、颜色）
-            com.gameengine.components.RenderComponent rc = obj.getComponent(com.gameengine.components.RenderComponent.class);
-            if (rc != null) {
-                com.gameengine.components.RenderComponent.RenderType rt = rc.getRenderType();
-                com.gameengine.math.Vector2 sz = rc.getSize();
-                com.gameengine.components.RenderComponent.Color col = rc.getColor();
-                sb.append(',')
-                  .append("\"rt\":\"").append(rt.name()).append("\",")
-                  .append("\"w\":").append(qfmt.format(sz.x)).append(',')
-                  .append("\"h\":").append(qfmt.format(sz.y)).append(',')
-                  .append("\"color\":[")
-                  .append(qfmt.format(col.r)).append(',')
-                  .append(qfmt.format(col.g)).append(',')
-                  .append(qfmt.format(col.b)).append(',')
-                  .append(qfmt.format(col.a)).append(']');
-            } else {
-                // 标记自定义渲染（如 Player），方便回放做近似还原
-                sb.append(',').append("\"rt\":\"CUSTOM\"");
+        if (full) {
+            List<GameObject> objs = scene.getGameObjects();
+            for (GameObject obj : objs) {
+                if (appendEntity(sb, obj, count == 0)) count++;
             }
-            float hp = 100f;
-            float maxHp = 100f;
-            HealthComponent hc = obj.getComponent(HealthComponent.class);
-            if (hc != null) {
-                hp = hc.getCurrentHealth();
-                maxHp = hc.getMaxHealth();
+        } else {
+            if (recorded == null || recordedStorage != entities) {
+                recorded = entities.query(TransformComponent.class);
+                recordedStorage = entities;
             }
-            sb.append(",\"hp\":").append(hp)
-            .append(",\"maxHp\":").append(maxHp);
-
-            sb.append('}');
-            first = false;
-            count++;
+            int[] n = { 0 };
+            recorded.forEachChanged(lastKeyframeTick, obj -> {
+                if (appendEntity(sb, obj, n[0] == 0)) n[0]++;
+            }, TransformComponent.class, HealthComponent.class, RenderComponent.class);
+            count = n[0];
+            sb.append("],\"removed\":[");
+            int[] removed = { 0 };
+            entities.forEachRemovedSince(lastKeyframeTick, handle -> {
+                if (removed[0]++ > 0) sb.append(',');
+                sb.append(handle);
+            });
+            count += removed[0];
         }
         sb.append("]}");
+        // 完整快照为空时不写；delta 为空说明没有变化，同样跳过
         if (count == 0) return false;
         enqueue(sb.toString());
+        lastKeyframeTick = entities.getChangeTick();
+        lastKeyframeStorage = entities;
+        keyframesSinceFull = full ? 0 : keyframesSinceFull + 1;
+        return true;
+    }
+
+    // 追加一个实体的记录；没有 Transform 的对象不记录
+    private boolean appendEntity(StringBuilder sb, GameObject obj, boolean first) {
+        TransformComponent tc = obj.getComponent(TransformComponent.class);
+        if (tc == null) return false;
+        float x = tc.getX();
+        float y = tc.getY();
+        if (!first) sb.append(',');
+        sb.append('{')
+          .append("\"id\":").append(obj.getHandle()).append(',')
+          .append("\"kind\":\"").append(obj.getName()).append("\",")
+          .append("\"x\":").append(qfmt.format(x)).append(',')
+          .append("\"y\":").append(qfmt.format(y));
+
+        // 可选渲染信息（若对象带有 RenderComponent，则记录形状、尺寸、颜色）
+        RenderComponent rc = obj.getComponent(RenderComponent.class);
+        if (rc != null) {
+            RenderComponent.RenderType rt = rc.getRenderType();
+            com.gameengine.math.Vector2 sz = rc.getSize();
+            RenderComponent.Color col = rc.getColor();
+            sb.append(',')
+              .append("\"rt\":\"").append(rt.name()).append("\",")
+              .append("\"w\":").append(qfmt.format(sz.x)).append(',')
+              .append("\"h\":").append(qfmt.format(sz.y)).append(',')
+              .append("\"color\":[")
+              .append(qfmt.format(col.r)).append(',')
+              .append(qfmt.format(col.g)).append(',')
+              .append(qfmt.format(col.b)).append(',')
+              .append(qfmt.format(col.a)).append(']');
+        } else {
+            // 标记自定义渲染（如 Player），方便回放做近似还原
+            sb.append(',').append("\"rt\":\"CUSTOM\"");
+        }
+        float hp = 100f;
+        float maxHp = 100f;
+        HealthComponent hc = obj.getComponent(HealthComponent.class);
+        if (hc != null) {
+            hp = hc.getCurrentHealth();
+            maxHp = hc.getMaxHealth();
+        }
+        sb.append(",\"hp\":").append(hp)
+          .append(",\"maxHp\":").append(maxHp);
+
+        sb.append('}');
         return true;
     }
 
+    public void setJobSystem(JobSystem jobs) {
+        this.jobs = jobs;
+    }
+
+    // 需要在 start 之前设置，才会写入 header
+    public void setSessionSeed(long seed) {
+        this.sessionSeed = seed;
+    }
+
+    public void setStateChecksum(long checksum) {
+        this.stateChecksum = checksum;
+    }
+
     private void enqueue(String line) {
         if (!lineQueue.offer(line)) {
             // 简单丢弃策略：队列满时丢弃低优先级数据（此处直接丢弃）
@@ -0,0 +1,91 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.ComponentTypes;
+import com.gameengine.core.GameObject;
+
+import java.util.*;
+
+/**
+ * 按组件类型维护的实时注册表，由 Scene 在对象加入、移除、失活时增量更新。
+ * 移除先登记，帧内统一压缩一次，保持插入顺序。
+ */
+final class ComponentRegistry {
+    private final List<ArrayList<Component<?>>> byType = new ArrayList<>();
+    private final List<List<Component<?>>> views = new ArrayList<>();
+    private final Set<GameObject> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long dirtyMask;
+
+    void add(GameObject obj) {
+        long signature = obj.getSignature();
+        while (signature != 0) {
+            int id = Long.numberOfTrailingZeros(signature);
+            signature &= signature - 1;
+            listFor(id).add(obj.getComponent(id));
+        }
+    }
+
+    void add(Component<?> component) {
+        listFor(component.getTypeId()).add(component);
+    }
+
+    // 单个组件被移除，直接从列表删去
+    void remove(Component<?> component) {
+        int id = component.getTypeId();
+        if (id < byType.size()) byType.get(id).remove(component);
+    }
+
+    void remove(GameObject obj) {
+        removed.add(obj);
+        // destroy() 会清空签名，此时无法得知原有类型，全部标脏
+        long signature = obj.getSignature();
+        dirtyMask |= signature != 0 ? signature : -1L;
+    }
+
+    // 对本帧有移除的类型各做一次压缩
+    void compact() {
+        if (removed.isEmpty()) return;
+        long mask = dirtyMask;
+        while (mask != 0) {
+            int id = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            if (id < byType.size()) compact(byType.get(id));
+        }
+        removed.clear();
+        dirtyMask = 0L;
+    }
+
+    // 原地稳定压缩；removeIf 每次都要新建谓词和位图
+    private void compact(ArrayList<Component<?>> list) {
+        int write = 0;
+        for (int read = 0; read < list.size(); read++) {
+            Component<?> component = list.get(read);
+            if (removed.contains(component.getOwner())) continue;
+            if (write != read) list.set(write, component);
+            write++;
+        }
+        // subList(...).clear() 会新建视图，逐个从尾部删掉
+        for (int i = list.size() - 1; i >= write; i--) list.remove(i);
+    }
+
+    List<Component<?>> view(Class<?> type) {
+        int id = ComponentTypes.idOf(type);
+        listFor(id);
+        return views.get(id);
+    }
+
+    void clear() {
+        for (ArrayList<Component<?>> list : byType) list.clear();
+        removed.clear();
+        dirtyMask = 0L;
+    }
+
+    private ArrayList<Component<?>> listFor(int id) {
+        while (byType.size() <= id) {
+            ArrayList<Component<?>> list = new ArrayList<>();
+            byType.add(list);
+            views.add(Collections.unmodifiableList(list));
+        }
+        return byType.get(id);
+    }
+}
@@ -1,19 +1,62 @@
 package com.gameengine.scene;
 
+import com.gameengine.core.Broadphase;
+import com.gameengine.core.CommandBuffer;
+import com.gameengine.core.CommandQueue;
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentTypes;
+import com.gameengine.core.EntityPool;
+import com.gameengine.core.EntityRegistry;
+import com.gameengine.core.EntityStorage;
+import com.gameengine.core.FrameArena;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.JobSystem;
+import com.gameengine.core.SpatialIndex;
+import com.gameengine.core.SystemScheduler;
+import com.gameengine.core.UniformGridIndex;
 import com.gameengine.graphics.IRenderer;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class Scene {
     private String name;
-    private List<GameObject> gameObjects;
+    // 密集数组存放场景对象，对象通过 sceneIndex 记住自己的位置
+    private GameObject[] gameObjects;
+    private int objectCount;
+    // 确定顺序模式：移除时稳定压缩而不是 swap-remove，供录制/回放使用
+    private boolean deterministicOrder;
     private List<GameObject> objectsToAdd;
     private List<GameObject> objectsToRemove;
     private boolean initialized;
     protected IRenderer iRenderer;
+    private final EntityStorage storage = new EntityStorage();
+    private final ComponentRegistry registry = new ComponentRegistry();
+    private final EntityRegistry entities = new EntityRegistry();
+    private final TagIndex tagIndex = new TagIndex();
+    private final Map<String, EntityPool> pools = new LinkedHashMap<>();
+    // 对象更新之后运行的系统
+    private final SystemScheduler systems = new SystemScheduler();
+    // 结构版本号：对象集合每次变化加一，只读快照据此按需重建
+    private long structureEpoch;
+    private long snapshotEpoch = -1;
+    private List<GameObject> snapshot = Collections.emptyList();
+    // 并行更新：线程封闭的对象按块在任务系统上更新
+    private static final int UPDATE_CHUNK = 64;
+    private boolean parallelUpdate;
+    private JobSystem jobs;
+    // 工作项中的结构性修改先记录，每帧末尾的同步点统一执行
+    private final CommandQueue commands = new CommandQueue();
+    // 分块更新的任务体建一次复用，本帧的对象数与步长放在字段里
+    private int confinedCount;
+    private float confinedDelta;
+    private final JobSystem.RangeTask confinedChunks = this::updateConfinedChunks;
+    // 系统的顺序键排在对象更新块之后
+    private static final long SYSTEM_KEY_BASE = 1L << 32;
+    // 渲染插值系数：0 为上一个固定步，1 为当前固定步
+    private float interpolationAlpha = 1f;
+    // 带碰撞体实体的空间索引，由 SpatialIndexSystem 维护；不同分布的场景可换用不同实现
+    private SpatialIndex spatialIndex = new UniformGridIndex(64f);
 
     public IRenderer getRenderer() {
         return iRenderer;
@@ -23,67 +66,252 @@ public class Scene {
     
     public Scene(String name) {
         this.name = name;
-        this.gameObjects = new ArrayList<>();
+        this.gameObjects = new GameObject[64];
+        this.objectCount = 0;
         this.objectsToAdd = new ArrayList<>();
         this.objectsToRemove = new ArrayList<>();
         this.initialized = false;
+        this.systems.setCommandQueue(commands, SYSTEM_KEY_BASE);
     }
 
     public void initialize() {
-        for (GameObject obj : gameObjects) {
-            obj.initialize();
+        for (int i = 0; i < objectCount; i++) {
+            gameObjects[i].initialize();
         }
         initialized = true;
     }
 
     public void update(float deltaTime) {
+        // 本次更新中的修改、加入、移除都记在新的变更刻上
+        storage.advanceChangeTick();
         // 添加新对象
-        for (GameObject obj : objectsToAdd) {
-            gameObjects.add(obj);
+        if (!objectsToAdd.isEmpty()) structureEpoch++;
+        for (int i = 0; i < objectsToAdd.size(); i++) {
+            GameObject obj = objectsToAdd.get(i);
+            if (objectCount == gameObjects.length) gameObjects = Arrays.copyOf(gameObjects, objectCount * 2);
+            obj.setSceneIndex(objectCount);
+            gameObjects[objectCount++] = obj;
+            if (obj.getScene() == null) obj.setScene(this);
+            entities.create(obj);
             if (initialized) obj.initialize();
+            storage.add(obj);
+            registry.add(obj);
+            tagIndex.add(obj);
         }
         objectsToAdd.clear();
 
-        // 移除对象
-        for (GameObject obj : objectsToRemove) {
-            gameObjects.remove(obj);
+        // 移除对象：按下标 O(1) 定位
+        for (int i = 0; i < objectsToRemove.size(); i++) {
+            GameObject obj = objectsToRemove.get(i);
+            int index = obj.getSceneIndex();
+            if (index < 0 || index >= objectCount || gameObjects[index] != obj) continue;
+            if (deterministicOrder) {
+                gameObjects[index] = null; // 留空位，下面的压缩遍历统一收拢
+            } else {
+                swapRemove(index);
+            }
+            detach(obj);
         }
         objectsToRemove.clear();
 
-        // 更新对象
-        Iterator<GameObject> iterator = gameObjects.iterator();
-        while (iterator.hasNext()) {
-            GameObject obj = iterator.next();
-            if (obj.isActive()) obj.update(deltaTime);
-            else iterator.remove();
+        // 更新对象，同时移除失活对象
+        boolean confinedDone = parallelUpdate && jobs != null;
+        if (confinedDone) updateConfinedParallel(deltaTime);
+        if (deterministicOrder) {
+            updateCompacting(deltaTime, confinedDone);
+        } else {
+            updateSwapRemoving(deltaTime, confinedDone);
         }
+        registry.compact();
+        tagIndex.compact();
+
+        systems.run(deltaTime);
+
+        // 同步点：对象更新块和系统记录的命令按顺序键合并执行
+        commands.flush(this);
+    }
+
+    /**
+     * 线程封闭的对象分块并行更新。块号作为命令的顺序键，
+     * 块内的结构性修改在帧末同步点按块顺序执行，结果与线程调度无关。
+     */
+    private void updateConfinedParallel(float deltaTime) {
+        confinedCount = objectCount;
+        confinedDelta = deltaTime;
+        int chunks = (confinedCount + UPDATE_CHUNK - 1) / UPDATE_CHUNK;
+        jobs.parallelFor(0, chunks, 1, confinedChunks);
+    }
+
+    private void updateConfinedChunks(int first, int last) {
+        for (int c = first; c < last; c++) {
+            commands.enter(c);
+            try {
+                int end = Math.min(confinedCount, (c + 1) * UPDATE_CHUNK);
+                for (int i = c * UPDATE_CHUNK; i < end; i++) {
+                    GameObject obj = gameObjects[i];
+                    if (obj != null && obj.isActive() && obj.isThreadConfined()) obj.update(confinedDelta);
+                }
+            } finally {
+                commands.exit();
+            }
+        }
+    }
+
+    // 一遍完成更新与稳定压缩，保持对象相对顺序
+    private void updateCompacting(float deltaTime, boolean confinedDone) {
+        int write = 0;
+        for (int read = 0; read < objectCount; read++) {
+            GameObject obj = gameObjects[read];
+            if (obj == null) continue;
+            if (!obj.isActive()) {
+                gameObjects[read] = null;
+                detach(obj);
+                continue;
+            }
+            if (!confinedDone || !obj.isThreadConfined()) obj.update(deltaTime);
+            if (write != read) {
+                gameObjects[write] = obj;
+                gameObjects[read] = null;
+                obj.setSceneIndex(write);
+            }
+            write++;
+        }
+        Arrays.fill(gameObjects, write, objectCount, null);
+        objectCount = write;
+    }
+
+    // 失活对象用末尾对象填补，O(1) 移除，但会打乱顺序
+    private void updateSwapRemoving(float deltaTime, boolean confinedDone) {
+        int i = 0;
+        while (i < objectCount) {
+            GameObject obj = gameObjects[i];
+            if (!obj.isActive()) {
+                swapRemove(i);
+                detach(obj);
+                continue; // 换过来的对象还没更新
+            }
+            if (!confinedDone || !obj.isThreadConfined()) obj.update(deltaTime);
+            i++;
+        }
+    }
+
+    private void swapRemove(int index) {
+        int last = --objectCount;
+        if (index != last) {
+            gameObjects[index] = gameObjects[last];
+            gameObjects[index].setSceneIndex(index);
+        }
+        gameObjects[last] = null;
+    }
+
+    // 从存储、注册表和索引中摘除对象
+    private void detach(GameObject obj) {
+        structureEpoch++;
+        obj.setSceneIndex(-1);
+        storage.remove(obj);
+        registry.remove(obj);
+        tagIndex.remove(obj);
+        entities.release(obj);
+        obj.returnToPool();
     }
 
     public void render() {
-        for (GameObject obj : gameObjects) {
-            if (obj.isActive()) obj.render();
+        for (int i = 0; i < objectCount; i++) {
+            GameObject obj = gameObjects[i];
+            if (obj != null && obj.isActive()) obj.render();
         }
     }
 
+    // 在工作项中调用时记录为命令，否则在下一次 update 的添加阶段生效
     public void addGameObject(GameObject gameObject) {
-        objectsToAdd.add(gameObject);
+        CommandBuffer buffer = commands.recording();
+        if (buffer != null) buffer.spawn(gameObject);
+        else objectsToAdd.add(gameObject);
+    }
+
+    // 显式移除：在下一次 update 的移除阶段生效
+    public void removeGameObject(GameObject gameObject) {
+        CommandBuffer buffer = commands.recording();
+        if (buffer != null) buffer.run(() -> objectsToRemove.add(gameObject));
+        else objectsToRemove.add(gameObject);
     }
 
+    // 失活并移除；在工作项中调用时延迟到同步点
+    public void destroyGameObject(GameObject gameObject) {
+        CommandBuffer buffer = commands.recording();
+        if (buffer != null) {
+            buffer.destroy(gameObject);
+            return;
+        }
+        gameObject.setActive(false);
+        objectsToRemove.add(gameObject);
+    }
+
+    /**
+     * 结构性操作（取对象池、增删对象等）：在工作项中记录为命令，同步点按顺序执行；
+     * 其他时候立即执行。
+     */
+    public void defer(Runnable op) {
+        CommandBuffer buffer = commands.recording();
+        if (buffer != null) buffer.run(op);
+        else op.run();
+    }
+
+    // 当前线程处于工作项中时返回它的命令缓冲，否则返回 null
+    public CommandBuffer getCommandBuffer() {
+        return commands.recording();
+    }
+
+    // 结果取自当前线程的 FrameArena，只在本步内有效
     public <T extends Component<T>> List<GameObject> findGameObjectsByComponent(Class<T> componentType) {
-        return gameObjects.stream()
-                .filter(obj -> obj.hasComponent(componentType))
-                .collect(Collectors.toList());
+        long bit = ComponentTypes.bitOf(componentType);
+        List<GameObject> result = FrameArena.get().list();
+        for (int i = 0; i < objectCount; i++) {
+            GameObject obj = gameObjects[i];
+            if (obj != null && (obj.getSignature() & bit) != 0) result.add(obj);
+        }
+        return result;
     }
 
+    /**
+     * 返回某类组件的实时只读视图，不分配内存；内容在下一次 update 时变化，
+     * 需要跨帧保存请使用 {@link #getComponents(Class, List)}。
+     */
+    @SuppressWarnings("unchecked")
     public <T extends Component<T>> List<T> getComponents(Class<T> componentType) {
-        return findGameObjectsByComponent(componentType).stream()
-                .map(obj -> obj.getComponent(componentType))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return (List<T>) (List<?>) registry.view(componentType);
+    }
+
+    // 把某类组件追加到调用方提供的列表
+    public <T extends Component<T>> List<? super T> getComponents(Class<T> componentType, List<? super T> out) {
+        out.addAll(getComponents(componentType));
+        return out;
+    }
+
+    // 已在场景中的对象新增组件时由 GameObject 回调
+    public void onComponentAdded(GameObject obj, Component<?> component) {
+        if (obj.getScene() == this) registry.add(component);
+    }
+
+    public void onComponentRemoved(GameObject obj, Component<?> component) {
+        if (obj.getScene() == this) registry.remove(component);
     }
 
     public void clear() {
-        gameObjects.clear();
+        storage.clear();
+        spatialIndex.clear();
+        registry.clear();
+        tagIndex.clear();
+        entities.clear();
+        pools.clear();
+        systems.clear();
+        commands.clear();
+        for (int i = 0; i < objectCount; i++) {
+            if (gameObjects[i] != null) gameObjects[i].setSceneIndex(-1);
+        }
+        Arrays.fill(gameObjects, 0, objectCount, null);
+        objectCount = 0;
+        structureEpoch++;
         objectsToAdd.clear();
         objectsToRemove.clear();
     }
@@ -92,8 +320,116 @@ public class Scene {
         return name;
     }
 
+    // 已在场景中的对象新增标签时由 GameObject 回调
+    public void onTagAdded(GameObject obj, String tag) {
+        if (obj.getScene() == this) tagIndex.add(obj, tag);
+    }
+
+    /**
+     * 带某标签的对象的实时只读视图（可能包含本帧刚失活的对象）。
+     */
+    public List<GameObject> findByTag(String tag) {
+        return tagIndex.view(tag);
+    }
+
+    // 单例角色（如玩家）的 O(1) 查找，没有则返回 null
+    public GameObject findFirstByTag(String tag) {
+        return tagIndex.first(tag);
+    }
+
+    // 场景范围的实体池，首次访问时用 factory 创建
+    public EntityPool getEntityPool(String poolName, Supplier<GameObject> factory) {
+        return pools.computeIfAbsent(poolName, n -> new EntityPool(n, factory));
+    }
+
+    public Collection<EntityPool> getEntityPools() {
+        return Collections.unmodifiableCollection(pools.values());
+    }
+
+    // 句柄失效（对象已移除）时返回 null
+    public GameObject resolve(long handle) {
+        return entities.resolve(handle);
+    }
+
+    public boolean isAlive(long handle) {
+        return entities.isAlive(handle);
+    }
+
+    public SystemScheduler getSystems() {
+        return systems;
+    }
+
+    public EntityStorage getStorage() {
+        return storage;
+    }
+
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    // 场景注册的宽相，GameEngine 创建物理系统时注入，用接触对唤醒休眠的物体；没有时为 null
+    public Broadphase getBroadphase() {
+        return null;
+    }
+
+    // 换用其他实现后，SpatialIndexSystem 在下一次运行时整体重建
+    public void setSpatialIndex(SpatialIndex spatialIndex) {
+        if (spatialIndex == null) throw new IllegalArgumentException("spatialIndex must not be null");
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * 返回对象集合的只读快照。同一结构版本内所有调用共享同一份快照，
+     * 只有在对象增删后才重建；修改请使用 addGameObject/removeGameObject。
+     */
     public List<GameObject> getGameObjects() {
-        return new ArrayList<>(gameObjects);
+        if (snapshotEpoch != structureEpoch) {
+            // 确定顺序模式下压缩前可能残留空位，快照中跳过
+            List<GameObject> copy = new ArrayList<>(objectCount);
+            for (int i = 0; i < objectCount; i++) {
+                if (gameObjects[i] != null) copy.add(gameObjects[i]);
+            }
+            snapshot = Collections.unmodifiableList(copy);
+            snapshotEpoch = structureEpoch;
+        }
+        return snapshot;
+    }
+
+    public long getStructureEpoch() {
+        return structureEpoch;
+    }
+
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    public void setInterpolationAlpha(float interpolationAlpha) {
+        this.interpolationAlpha = interpolationAlpha;
+    }
+
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    // 需要同时设置任务系统（GameEngine 在切换场景时设置）
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    public void setJobSystem(JobSystem jobs) {
+        this.jobs = jobs;
+    }
+
+    public boolean isDeterministicOrder() {
+        return deterministicOrder;
+    }
+
+    public void setDeterministicOrder(boolean deterministicOrder) {
+        this.deterministicOrder = deterministicOrder;
     }
 
 }
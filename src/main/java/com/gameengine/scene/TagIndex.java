@@ -0,0 +1,85 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+import java.util.*;
+
+/**
+ * 标签 -> 对象列表的索引，随场景添加/移除增量维护。
+ * 与 ComponentRegistry 一样，移除在帧内统一压缩。
+ */
+final class TagIndex {
+    private final Map<String, ArrayList<GameObject>> byTag = new HashMap<>();
+    private final Map<String, List<GameObject>> views = new HashMap<>();
+    private final Set<GameObject> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    // 标签种类很少，用列表去重，遍历不创建迭代器
+    private final List<String> dirtyTags = new ArrayList<>();
+
+    void add(GameObject obj) {
+        List<String> tags = obj.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            listFor(tags.get(i)).add(obj);
+        }
+    }
+
+    void add(GameObject obj, String tag) {
+        listFor(tag).add(obj);
+    }
+
+    void remove(GameObject obj) {
+        List<String> tags = obj.getTags();
+        if (tags.isEmpty()) return;
+        removed.add(obj);
+        for (int i = 0; i < tags.size(); i++) {
+            if (!dirtyTags.contains(tags.get(i))) dirtyTags.add(tags.get(i));
+        }
+    }
+
+    void compact() {
+        if (removed.isEmpty()) return;
+        for (int t = 0; t < dirtyTags.size(); t++) {
+            ArrayList<GameObject> list = byTag.get(dirtyTags.get(t));
+            if (list != null) compact(list);
+        }
+        removed.clear();
+        dirtyTags.clear();
+    }
+
+    // 原地稳定压缩，与 ComponentRegistry 相同
+    private void compact(ArrayList<GameObject> list) {
+        int write = 0;
+        for (int read = 0; read < list.size(); read++) {
+            GameObject obj = list.get(read);
+            if (removed.contains(obj)) continue;
+            if (write != read) list.set(write, obj);
+            write++;
+        }
+        for (int i = list.size() - 1; i >= write; i--) list.remove(i);
+    }
+
+    List<GameObject> view(String tag) {
+        listFor(tag);
+        return views.get(tag);
+    }
+
+    GameObject first(String tag) {
+        ArrayList<GameObject> list = byTag.get(tag);
+        return list == null || list.isEmpty() ? null : list.get(0);
+    }
+
+    void clear() {
+        for (ArrayList<GameObject> list : byTag.values()) list.clear();
+        removed.clear();
+        dirtyTags.clear();
+    }
+
+    private ArrayList<GameObject> listFor(String tag) {
+        ArrayList<GameObject> list = byTag.get(tag);
+        if (list == null) {
+            list = new ArrayList<>();
+            byTag.put(tag, list);
+            views.put(tag, Collections.unmodifiableList(list));
+        }
+        return list;
+    }
+}